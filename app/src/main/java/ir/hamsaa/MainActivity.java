@@ -13,6 +13,7 @@ import android.widget.TimePicker;
 import android.widget.Toast;
 
 import android.app.PersianDatePickerDialog;
+import android.app.view.PersianTypefaces;
 
 import java.util.Calendar;
 import java.util.PersianCalendar;
@@ -36,7 +37,7 @@ public class MainActivity extends AppCompatActivity {
 
 
     public void showCalendar(View v) {
-        Typeface typeface = Typeface.createFromAsset(getAssets(), "Shabnam-Light-FD.ttf");
+        Typeface typeface = PersianTypefaces.fromAsset(this, "Shabnam-Light-FD.ttf");
 
 //        PersianCalendar initDate = new PersianCalendar();
 //        initDate.setPersianDate(1370, 3 - 1, 13);
@@ -0,0 +1,108 @@
+package android.app;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.PersianCalendar;
+import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianDateCodec;
+
+/**
+ * An immutable array of {@link PersianCalendarUtils#packDate packed} Persian dates that can be put
+ * into an {@link android.content.Intent} or a {@link android.os.Bundle}. Sorted arrays are parceled
+ * as varint deltas with {@link PersianDateCodec}, about a byte per date for runs of days; other
+ * arrays take four bytes per date.
+ */
+public final class PersianDateArray implements Parcelable {
+
+    private static final int FORMAT_INTS = 0;
+    private static final int FORMAT_SORTED = 1;
+
+    private final int[] dates;
+
+    /**
+     * @param dates packed dates, copied
+     * @throws IllegalArgumentException if one of them is not a {@link PersianDateCodec#isPackedDate
+     *                                  packed date}
+     */
+    public PersianDateArray(int[] dates) {
+        this.dates = checkDates(dates.clone());
+    }
+
+    private PersianDateArray(Parcel in) {
+        if (in.readInt() == FORMAT_SORTED) {
+            dates = PersianDateCodec.decodeSortedDates(in.createByteArray());
+        } else {
+            dates = checkDates(in.createIntArray());
+        }
+    }
+
+    // both parcel formats hold only what the constructor accepts
+    private static int[] checkDates(int[] dates) {
+        for (int date : dates) {
+            if (!PersianDateCodec.isPackedDate(date)) {
+                throw new IllegalArgumentException("not a packed date: " + date);
+            }
+        }
+        return dates;
+    }
+
+    public int size() {
+        return dates.length;
+    }
+
+    /**
+     * @return the packed date at the index
+     */
+    public int get(int index) {
+        return dates[index];
+    }
+
+    /**
+     * Sets the calendar to the date at the index.
+     *
+     * @return {@code persianCalendar}
+     */
+    public PersianCalendar get(int index, PersianCalendar persianCalendar) {
+        int date = dates[index];
+        persianCalendar.setPersianDate(PersianCalendarUtils.packedYear(date), PersianCalendarUtils.packedMonth(date),
+                PersianCalendarUtils.packedDay(date));
+        return persianCalendar;
+    }
+
+    /**
+     * @return a copy of the packed dates
+     */
+    public int[] toArray() {
+        return dates.clone();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel out, int flags) {
+        if (PersianDateCodec.isSorted(dates, 0, dates.length)) {
+            out.writeInt(FORMAT_SORTED);
+            out.writeByteArray(PersianDateCodec.encodeSortedDates(dates));
+        } else {
+            out.writeInt(FORMAT_INTS);
+            out.writeIntArray(dates);
+        }
+    }
+
+    public static final Creator<PersianDateArray> CREATOR = new Creator<PersianDateArray>() {
+        @Override
+        public PersianDateArray createFromParcel(Parcel in) {
+            return new PersianDateArray(in);
+        }
+
+        @Override
+        public PersianDateArray[] newArray(int size) {
+            return new PersianDateArray[size];
+        }
+    };
+
+}
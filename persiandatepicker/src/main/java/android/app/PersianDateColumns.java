@@ -0,0 +1,112 @@
+package android.app;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import java.util.PersianCalendar;
+import java.util.persian.PersianDateKeys;
+
+/**
+ * Stores Persian dates in SQLite {@code INTEGER} columns as {@link PersianDateKeys}, so that an
+ * index on the column serves range queries by Persian month or year.
+ *
+ * <pre>
+ *  {@code
+ *    values.put("date", PersianDateColumns.toKey(persianCalendar));
+ *
+ *    Cursor cursor = db.query("notes", null, PersianDateColumns.between("date"),
+ *            PersianDateColumns.monthArgs(1403, 0), null, null, "date");
+ *  }
+ * </pre>
+ *
+ * With Room, annotate two methods of your own converter class with {@code @TypeConverter} and
+ * delegate them to {@link #toKey(PersianCalendar)} and {@link #fromKey(Integer)}; the library does
+ * not depend on Room itself.
+ */
+public final class PersianDateColumns {
+
+    private PersianDateColumns() {
+    }
+
+    /**
+     * @return the date key of the calendar, or {@code null} for a {@code null} calendar
+     */
+    public static Integer toKey(PersianCalendar persianCalendar) {
+        return persianCalendar == null ? null : PersianDateKeys.dateKey(persianCalendar);
+    }
+
+    /**
+     * @return a new calendar set to the start of the date in the default time zone, or
+     * {@code null} for a {@code null} key
+     */
+    public static PersianCalendar fromKey(Integer dateKey) {
+        return dateKey == null ? null : PersianDateKeys.toCalendar(dateKey);
+    }
+
+    public static void put(ContentValues values, String column, PersianCalendar persianCalendar) {
+        if (persianCalendar == null) {
+            values.putNull(column);
+        } else {
+            values.put(column, PersianDateKeys.dateKey(persianCalendar));
+        }
+    }
+
+    /**
+     * Stores the instant as a date-time key of its local date and time.
+     */
+    public static void putDateTime(ContentValues values, String column, PersianCalendar persianCalendar) {
+        if (persianCalendar == null) {
+            values.putNull(column);
+        } else {
+            values.put(column, PersianDateKeys.dateTimeKey(persianCalendar));
+        }
+    }
+
+    /**
+     * @return the date key in the column, or {@code 0} if it is {@code NULL}
+     */
+    public static int getDateKey(Cursor cursor, int columnIndex) {
+        return cursor.isNull(columnIndex) ? 0 : cursor.getInt(columnIndex);
+    }
+
+    /**
+     * @return the date-time key in the column, or {@code 0} if it is {@code NULL}
+     */
+    public static long getDateTimeKey(Cursor cursor, int columnIndex) {
+        return cursor.isNull(columnIndex) ? 0 : cursor.getLong(columnIndex);
+    }
+
+    /**
+     * @return a selection matching the column between two bound arguments, both inclusive
+     */
+    public static String between(String column) {
+        return column + " BETWEEN ? AND ?";
+    }
+
+    /**
+     * @return the arguments of {@link #between} for the date keys of the month
+     */
+    public static String[] monthArgs(int year, int month) {
+        return args(PersianDateKeys.monthStart(year, month), PersianDateKeys.monthEnd(year, month));
+    }
+
+    /**
+     * @return the arguments of {@link #between} for the date keys of the year
+     */
+    public static String[] yearArgs(int year) {
+        return args(PersianDateKeys.yearStart(year), PersianDateKeys.yearEnd(year));
+    }
+
+    /**
+     * @return the arguments of {@link #between} for the date-time keys of the month
+     */
+    public static String[] monthDateTimeArgs(int year, int month) {
+        return args(PersianDateKeys.dayStart(PersianDateKeys.monthStart(year, month)),
+                PersianDateKeys.dayEnd(PersianDateKeys.monthEnd(year, month)));
+    }
+
+    private static String[] args(long from, long to) {
+        return new String[]{Long.toString(from), Long.toString(to)};
+    }
+
+}
@@ -1,13 +1,12 @@
 package android.app;
 
 import android.content.Context;
-import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Typeface;
-import android.graphics.drawable.ColorDrawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.ColorInt;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,7 +19,8 @@ import java.util.Date;
 import java.util.PersianCalendar;
 import java.util.persian.PersianCalendarConstants;
 import java.util.persian.PersianCalendarUtils;
-import java.util.persian.PersianHelper;
+import java.util.persian.PersianDateSet;
+import java.util.persian.PersianToday;
 import android.app.view.PersianNumberPicker;
 
 import com.android.persiandatepicker.R;
@@ -28,7 +28,36 @@ import com.android.persiandatepicker.R;
 
 public class PersianDatePicker extends LinearLayout {
 
-    private final PersianCalendar pCalendar;
+    private static final int CHANGED_TYPEFACE = 1;
+    private static final int CHANGED_DIVIDER_COLOR = 1 << 1;
+    private static final int CHANGED_YEAR_RANGE = 1 << 2;
+    private static final int CHANGED_DATE = 1 << 3;
+    private static final int CHANGED_ALL = CHANGED_TYPEFACE | CHANGED_DIVIDER_COLOR | CHANGED_YEAR_RANGE | CHANGED_DATE;
+
+    private static final int DEFAULT_YEAR_WINDOW = 50;
+
+    /**
+     * The start of the range in range mode, see {@link #setRangeMode(boolean)}.
+     */
+    public static final int RANGE_START = 0;
+    /**
+     * The end of the range in range mode, see {@link #setRangeMode(boolean)}.
+     */
+    public static final int RANGE_END = 1;
+
+    /**
+     * Date changes are delivered on every wheel step (default).
+     */
+    public static final int CHANGE_DELIVERY_IMMEDIATE = 0;
+    /**
+     * Date changes are coalesced and delivered at most once per frame.
+     */
+    public static final int CHANGE_DELIVERY_PER_FRAME = 1;
+    /**
+     * Date changes are delivered only once all wheels stopped scrolling.
+     */
+    public static final int CHANGE_DELIVERY_ON_IDLE = 2;
+
     private int selectedMonth;
     private int selectedYear;
     private int selectedDay;
@@ -46,6 +75,26 @@ public class PersianDatePicker extends LinearLayout {
     private Typeface typeFace;
     private int dividerColor;
     private int yearRange;
+    // half size of the window of years held by the year wheel, 0 to hold the whole range
+    private int yearWindow;
+    private int yearWindowMin;
+    private int yearWindowMax;
+
+    private int changeDelivery = CHANGE_DELIVERY_IMMEDIATE;
+    private boolean dateChangePending;
+    private boolean frameCallbackPending;
+    // bit per wheel that is currently scrolling
+    private int scrollingWheels;
+    private final ReusableText descriptionText = new ReusableText();
+
+    private PersianDateSet disabledDates;
+
+    private boolean rangeMode;
+    private int activeEndpoint = RANGE_START;
+    // year, month (1-12) and day of the range endpoints, indexed by RANGE_START and RANGE_END
+    private final int[] rangeYears = new int[2];
+    private final int[] rangeMonths = new int[2];
+    private final int[] rangeDays = new int[2];
 
     public PersianDatePicker(Context context) {
         this(context, null, -1);
@@ -58,22 +107,27 @@ public class PersianDatePicker extends LinearLayout {
     private void updateVariablesFromXml(Context context, AttributeSet attrs) {
 
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PersianDatePicker, 0, 0);
+        // read once, so a midnight in between cannot mix two days
+        int today = PersianToday.getDefault().getDate();
+        int todayYear = PersianCalendarUtils.packedYear(today);
         yearRange = a.getInteger(R.styleable.PersianDatePicker_yearRange, 10);
+        yearWindow = a.getInteger(R.styleable.PersianDatePicker_yearWindow, DEFAULT_YEAR_WINDOW);
         /*
          * Initializing yearNumberPicker min and max values If minYear and
 		 * maxYear attributes are not set, use (current year - 10) as min and
 		 * (current year + 10) as max.
 		 */
-        minYear = a.getInt(R.styleable.PersianDatePicker_minYear, pCalendar.getPersianYear() - yearRange);
-        maxYear = a.getInt(R.styleable.PersianDatePicker_maxYear, pCalendar.getPersianYear() + yearRange);
+        minYear = a.getInt(R.styleable.PersianDatePicker_minYear, todayYear - yearRange);
+        maxYear = a.getInt(R.styleable.PersianDatePicker_maxYear, todayYear + yearRange);
         displayMonthNames = a.getBoolean(R.styleable.PersianDatePicker_displayMonthNames, false);
         /*
          * displayDescription
 		 */
         displayDescription = a.getBoolean(R.styleable.PersianDatePicker_displayDescription, false);
-        selectedDay = a.getInteger(R.styleable.PersianDatePicker_selectedDay, pCalendar.getPersianDay());
-        selectedYear = a.getInt(R.styleable.PersianDatePicker_selectedYear, pCalendar.getPersianYear());
-        selectedMonth = a.getInteger(R.styleable.PersianDatePicker_selectedMonth, pCalendar.getPersianMonth() + 1);
+        changeDelivery = a.getInt(R.styleable.PersianDatePicker_changeDelivery, CHANGE_DELIVERY_IMMEDIATE);
+        selectedDay = a.getInteger(R.styleable.PersianDatePicker_selectedDay, PersianCalendarUtils.packedDay(today));
+        selectedYear = a.getInt(R.styleable.PersianDatePicker_selectedYear, todayYear);
+        selectedMonth = a.getInteger(R.styleable.PersianDatePicker_selectedMonth, PersianCalendarUtils.packedMonth(today) + 1);
 
         // if you pass selected year before min year, then we need to push min year to before that
         if (minYear > selectedYear) {
@@ -103,96 +157,148 @@ public class PersianDatePicker extends LinearLayout {
         descriptionTextView = view.findViewById(R.id.descriptionTextView);
 
 
-        yearNumberPicker.setFormatter(new NumberPicker.Formatter() {
-            @Override
-            public String format(int i) {
-                return PersianHelper.toPersianNumber(i + "");
-            }
-        });
-
-        monthNumberPicker.setFormatter(new NumberPicker.Formatter() {
-            @Override
-            public String format(int i) {
-                return PersianHelper.toPersianNumber(i + "");
-            }
-        });
-
-        dayNumberPicker.setFormatter(new NumberPicker.Formatter() {
-            @Override
-            public String format(int i) {
-                return PersianHelper.toPersianNumber(i + "");
-            }
-        });
-
-        // init calendar
-        pCalendar = new PersianCalendar();
+        PersianNumberFormatter numberFormatter = new PersianNumberFormatter();
+        yearNumberPicker.setFormatter(numberFormatter);
+        monthNumberPicker.setFormatter(numberFormatter);
+        dayNumberPicker.setFormatter(numberFormatter);
 
         // update variables from xml
         updateVariablesFromXml(context, attrs);
 
+        // static wheel setup, done once
+        yearNumberPicker.setOnValueChangedListener(dateChangeListener);
+        yearNumberPicker.setOnScrollListener(scrollListener);
+        monthNumberPicker.setOnScrollListener(scrollListener);
+        dayNumberPicker.setOnScrollListener(scrollListener);
+        monthNumberPicker.setMinValue(1);
+        monthNumberPicker.setMaxValue(12);
+        if (displayMonthNames) {
+            monthNumberPicker.setDisplayedValues(PersianCalendarConstants.persianMonthNames);
+        }
+        monthNumberPicker.setOnValueChangedListener(dateChangeListener);
+        dayNumberPicker.setMinValue(1);
+        dayNumberPicker.setMaxValue(31);
+        dayNumberPicker.setOnValueChangedListener(dateChangeListener);
+        if (displayDescription) {
+            descriptionTextView.setVisibility(View.VISIBLE);
+        }
+
         // update view
-        updateViewData();
+        applyChanges(CHANGED_ALL);
     }
 
     public void setMaxYear(int maxYear) {
         this.maxYear = maxYear;
-        updateViewData();
+        applyChanges(CHANGED_YEAR_RANGE);
     }
 
     public void setMinYear(int minYear) {
         this.minYear = minYear;
-        updateViewData();
+        applyChanges(CHANGED_YEAR_RANGE);
     }
 
     public void setTypeFace(Typeface typeFace) {
         this.typeFace = typeFace;
-        updateViewData();
+        applyChanges(CHANGED_TYPEFACE);
     }
 
     public void setDividerColor(@ColorInt int color) {
         this.dividerColor = color;
-        updateViewData();
-    }
-
-    private void setDividerColor(NumberPicker picker, int color) {
-
-        java.lang.reflect.Field[] pickerFields = NumberPicker.class.getDeclaredFields();
-        for (java.lang.reflect.Field pf : pickerFields) {
-            if (pf.getName().equals("mSelectionDivider")) {
-                pf.setAccessible(true);
-                try {
-                    ColorDrawable colorDrawable = new ColorDrawable(color);
-                    pf.set(picker, colorDrawable);
-                } catch (IllegalArgumentException e) {
-                    e.printStackTrace();
-                } catch (Resources.NotFoundException e) {
-                    e.printStackTrace();
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-                break;
+        applyChanges(CHANGED_DIVIDER_COLOR);
+    }
+
+    /**
+     * Starts a batched configuration of this picker. The returned {@link Config} records the
+     * new values and {@link Config#apply()} pushes only the properties that actually changed
+     * to the wheels, in one pass.
+     * <pre>
+     * {@code
+     * datePicker.edit()
+     *         .setMinYear(1300)
+     *         .setMaxYear(1400)
+     *         .setTypeFace(typeface)
+     *         .apply();
+     * }
+     * </pre>
+     */
+    public Config edit() {
+        return new Config();
+    }
+
+    /**
+     * Normalizes the given date, stores it as the selected date and pushes min/max year out
+     * when the date falls outside of them.
+     *
+     * @return the properties changed by this call
+     */
+    private int selectDate(int year, int month, int day) {
+        return selectDate(year, month, day, true);
+    }
+
+    /**
+     * @param forward direction to look for an enabled date in when the date is disabled
+     */
+    private int selectDate(int year, int month, int day, boolean forward) {
+        day = Math.min(day, PersianCalendarUtils.persianMonthLength(year, month - 1));
+
+        if (disabledDates != null && disabledDates.contains(year, month - 1, day)) {
+            long enabled = disabledDates.nextNotContained(year, month - 1, day, forward, minYear, maxYear);
+            if (enabled == -1) {
+                enabled = disabledDates.nextNotContained(year, month - 1, day, !forward, minYear, maxYear);
+            }
+            if (enabled != -1) {
+                year = (int) PersianCalendar.y(enabled);
+                month = PersianCalendar.m(enabled) + 1;
+                day = PersianCalendar.d(enabled);
             }
         }
-    }
 
+        int changes = 0;
+        if (year != selectedYear || month != selectedMonth || day != selectedDay) {
+            selectedYear = year;
+            selectedMonth = month;
+            selectedDay = day;
+            changes |= CHANGED_DATE;
+        }
 
-    private void updateViewData() {
+        // if you pass selected year before min year, then we need to push min year to before that
+        if (minYear > selectedYear) {
+            minYear = selectedYear - yearRange;
+            changes |= CHANGED_YEAR_RANGE;
+        }
+
+        // if you pass selected year after max year, then we need to push max year to after that
+        if (maxYear < selectedYear) {
+            maxYear = selectedYear + yearRange;
+            changes |= CHANGED_YEAR_RANGE;
+        }
+        return changes;
+    }
+
+    /**
+     * Pushes the given properties to the wheels. Everything not flagged in {@code changes}
+     * is left untouched, so the wheels are relaid out at most once per call.
+     */
+    private void applyChanges(int changes) {
+        if (changes == 0) {
+            return;
+        }
 
-        if (typeFace != null) {
+        if ((changes & CHANGED_TYPEFACE) != 0 && typeFace != null) {
             yearNumberPicker.setTypeFace(typeFace);
             monthNumberPicker.setTypeFace(typeFace);
             dayNumberPicker.setTypeFace(typeFace);
         }
 
-        if (dividerColor > 0) {
-            setDividerColor(yearNumberPicker, dividerColor);
-            setDividerColor(monthNumberPicker, dividerColor);
-            setDividerColor(dayNumberPicker, dividerColor);
+        if ((changes & CHANGED_DIVIDER_COLOR) != 0 && dividerColor > 0) {
+            yearNumberPicker.setSelectionDividerColor(dividerColor);
+            monthNumberPicker.setSelectionDividerColor(dividerColor);
+            dayNumberPicker.setSelectionDividerColor(dividerColor);
         }
 
-        yearNumberPicker.setMinValue(minYear);
-        yearNumberPicker.setMaxValue(maxYear);
-
+        if ((changes & (CHANGED_YEAR_RANGE | CHANGED_DATE)) == 0) {
+            return;
+        }
 
         if (selectedYear > maxYear) {
             selectedYear = maxYear;
@@ -201,102 +307,459 @@ public class PersianDatePicker extends LinearLayout {
             selectedYear = minYear;
         }
 
+        updateYearWindow(selectedYear);
         yearNumberPicker.setValue(selectedYear);
-        yearNumberPicker.setOnValueChangedListener(dateChangeListener);
-
-		/*
-         * initialing monthNumberPicker
-		 */
-
-        monthNumberPicker.setMinValue(1);
-        monthNumberPicker.setMaxValue(12);
-        if (displayMonthNames) {
-            monthNumberPicker.setDisplayedValues(PersianCalendarConstants.persianMonthNames);
-        }
 
         if (selectedMonth < 1 || selectedMonth > 12) {
             throw new IllegalArgumentException(String.format("Selected month (%d) must be between 1 and 12", selectedMonth));
         }
         monthNumberPicker.setValue(selectedMonth);
-        monthNumberPicker.setOnValueChangedListener(dateChangeListener);
 
-		/*
-         * initializing dayNumberPicker
-		 */
-        dayNumberPicker.setMinValue(1);
-        dayNumberPicker.setMaxValue(31);
         if (selectedDay > 31 || selectedDay < 1) {
             throw new IllegalArgumentException(String.format("Selected day (%d) must be between 1 and 31", selectedDay));
         }
-        if (selectedMonth > 6 && selectedMonth < 12 && selectedDay == 31) {
-            selectedDay = 30;
-        } else {
-            boolean isLeapYear = PersianCalendarUtils.isPersianLeapYear(selectedYear);
-            if (isLeapYear && selectedDay == 31) {
-                selectedDay = 30;
-            } else if (selectedDay > 29) {
-                selectedDay = 29;
-            }
-        }
+        selectedDay = Math.min(selectedDay, PersianCalendarUtils.persianMonthLength(selectedYear, selectedMonth - 1));
+        dayNumberPicker.setMaxValue(PersianCalendarUtils.persianMonthLength(selectedYear, selectedMonth - 1));
         dayNumberPicker.setValue(selectedDay);
-        dayNumberPicker.setOnValueChangedListener(dateChangeListener);
 
+        if (rangeMode) {
+            updateActiveEndpoint();
+        }
 
         if (displayDescription) {
-            descriptionTextView.setVisibility(View.VISIBLE);
-            descriptionTextView.setText(getDisplayPersianDate().getPersianLongDate());
+            updateDescription();
         }
     }
 
-    NumberPicker.OnValueChangeListener dateChangeListener = new NumberPicker.OnValueChangeListener() {
+    /**
+     * Sets the number of years kept on each side of the selected year by the year wheel. When
+     * the allowed range is wider than the window, the wheel only holds the window and slides it
+     * as the user scrolls, so its cost does not depend on the width of the range.
+     *
+     * @param yearWindow half size of the window, or 0 to always hold the whole range
+     */
+    public void setYearWindow(int yearWindow) {
+        this.yearWindow = yearWindow;
+        applyChanges(CHANGED_YEAR_RANGE);
+    }
 
-        @Override
-        public void onValueChange(NumberPicker picker, int oldVal, int newVal) {
-            int year = yearNumberPicker.getValue();
-            boolean isLeapYear = PersianCalendarUtils.isPersianLeapYear(year);
+    /**
+     * Points the year wheel at the window of years around {@code centerYear}, clamped to
+     * min/max year.
+     */
+    private void updateYearWindow(int centerYear) {
+        int windowMin = minYear;
+        int windowMax = maxYear;
+        if (yearWindow > 0 && maxYear - minYear > 2 * yearWindow) {
+            windowMin = Math.max(minYear, centerYear - yearWindow);
+            windowMax = Math.min(maxYear, windowMin + 2 * yearWindow);
+            windowMin = windowMax - 2 * yearWindow;
+        }
+        yearWindowMin = windowMin;
+        yearWindowMax = windowMax;
 
-            int month = monthNumberPicker.getValue();
-            int day = dayNumberPicker.getValue();
-
-            if (month < 7) {
-                dayNumberPicker.setMinValue(1);
-                dayNumberPicker.setMaxValue(31);
-            } else if (month > 6 && month < 12) {
-                if (day == 31) {
-                    dayNumberPicker.setValue(30);
+        // NumberPicker adjusts its value to the bounds, keep min <= max in between
+        if (windowMin > yearNumberPicker.getMaxValue()) {
+            yearNumberPicker.setMaxValue(windowMax);
+            yearNumberPicker.setMinValue(windowMin);
+        } else {
+            yearNumberPicker.setMinValue(windowMin);
+            yearNumberPicker.setMaxValue(windowMax);
+        }
+        // wrapping around a window would jump to its edge instead of the real min/max year
+        yearNumberPicker.setWrapSelectorWheel(windowMin == minYear && windowMax == maxYear
+                && yearNumberPicker.getWrapSelectorWheel());
+    }
+
+    /**
+     * Slides the year window when the selection gets close to one of its edges.
+     */
+    private void shiftYearWindow(int year) {
+        int threshold = Math.max(1, yearWindow / 4);
+        if ((year - yearWindowMin < threshold && yearWindowMin > minYear)
+                || (yearWindowMax - year < threshold && yearWindowMax < maxYear)) {
+            updateYearWindow(year);
+            yearNumberPicker.setValue(year);
+        }
+    }
+
+    /**
+     * Sets the dates that cannot be selected. When the wheels land on a disabled date they move
+     * on to the closest enabled one in the direction of the scroll. The set is consulted, not
+     * copied; call this again after changing it to re-validate the current date.
+     *
+     * @param disabledDates the disabled dates, or {@code null} to enable every date
+     */
+    public void setDisabledDates(PersianDateSet disabledDates) {
+        this.disabledDates = disabledDates;
+        if (disabledDates != null) {
+            applyChanges(selectDate(selectedYear, selectedMonth, selectedDay));
+        }
+    }
+
+    public PersianDateSet getDisabledDates() {
+        return disabledDates;
+    }
+
+    /**
+     * Turns range mode on or off. In range mode the picker holds a start and an end date; the
+     * wheels edit the active one (see {@link #setActiveEndpoint(int)}) and the other one is
+     * pushed along whenever the start would fall after the end. Both endpoints start out as the
+     * currently displayed date.
+     */
+    public void setRangeMode(boolean rangeMode) {
+        this.rangeMode = rangeMode;
+        activeEndpoint = RANGE_START;
+        if (rangeMode) {
+            storeEndpoint(RANGE_START, selectedYear, selectedMonth, selectedDay);
+            storeEndpoint(RANGE_END, selectedYear, selectedMonth, selectedDay);
+        }
+    }
+
+    public boolean isRangeMode() {
+        return rangeMode;
+    }
+
+    /**
+     * Sets both endpoints in range mode and shows the start on the wheels. An end before the
+     * start is replaced by the start.
+     */
+    public void setRange(PersianCalendar start, PersianCalendar end) {
+        if (!rangeMode) {
+            throw new IllegalStateException("Range mode is off");
+        }
+        storeEndpoint(RANGE_END, end.getPersianYear(), end.getPersianMonth() + 1, end.getPersianDay());
+        activeEndpoint = RANGE_START;
+        int changes = selectDate(start.getPersianYear(), start.getPersianMonth() + 1, start.getPersianDay());
+        // make sure the start is stored even when the wheels already show it
+        applyChanges(changes | CHANGED_DATE);
+    }
+
+    /**
+     * Chooses the endpoint edited by the wheels in range mode.
+     *
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     */
+    public void setActiveEndpoint(int endpoint) {
+        if (!rangeMode || endpoint == activeEndpoint) {
+            return;
+        }
+        activeEndpoint = endpoint;
+        applyChanges(selectDate(rangeYears[endpoint], rangeMonths[endpoint], rangeDays[endpoint]));
+    }
+
+    public int getActiveEndpoint() {
+        return activeEndpoint;
+    }
+
+    /**
+     * Writes an endpoint of the range into the given calendar.
+     *
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     * @return {@code persianCalendar}
+     */
+    public PersianCalendar getRangeEndpoint(int endpoint, PersianCalendar persianCalendar) {
+        persianCalendar.setPersianDate(rangeYears[endpoint], rangeMonths[endpoint] - 1, rangeDays[endpoint]);
+        return persianCalendar;
+    }
+
+    /**
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     */
+    public int getRangeYear(int endpoint) {
+        return rangeYears[endpoint];
+    }
+
+    /**
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     * @return the month (0-11) zero-base in order to match with {@link PersianCalendar}
+     */
+    public int getRangeMonth(int endpoint) {
+        return rangeMonths[endpoint] - 1;
+    }
+
+    /**
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     */
+    public int getRangeDay(int endpoint) {
+        return rangeDays[endpoint];
+    }
+
+    /**
+     * @param endpoint {@link #RANGE_START} or {@link #RANGE_END}
+     * @return the endpoint as days since 1970-01-01
+     */
+    public int getRangeEndpointEpochDay(int endpoint) {
+        return PersianCalendarUtils.persianToEpochDay(rangeYears[endpoint], rangeMonths[endpoint] - 1, rangeDays[endpoint]);
+    }
+
+    private void storeEndpoint(int endpoint, int year, int month, int day) {
+        rangeYears[endpoint] = year;
+        rangeMonths[endpoint] = month;
+        rangeDays[endpoint] = day;
+    }
+
+    /**
+     * Copies the date on the wheels into the active endpoint and keeps start &lt;= end by moving
+     * the other endpoint onto it.
+     */
+    private void updateActiveEndpoint() {
+        storeEndpoint(activeEndpoint, selectedYear, selectedMonth, selectedDay);
+        if (getRangeEndpointEpochDay(RANGE_START) > getRangeEndpointEpochDay(RANGE_END)) {
+            storeEndpoint(1 - activeEndpoint, selectedYear, selectedMonth, selectedDay);
+        }
+    }
+
+    private void updateDescription() {
+        PersianCalendar.appendPersianLongDate(descriptionText.reset(), selectedYear, selectedMonth - 1, selectedDay);
+        descriptionText.applyTo(descriptionTextView);
+    }
+
+    /**
+     * Sets how date changes caused by scrolling the wheels are reported to the
+     * {@link OnDateChangedListener} and the description text.
+     *
+     * @param changeDelivery one of {@link #CHANGE_DELIVERY_IMMEDIATE}, {@link #CHANGE_DELIVERY_PER_FRAME}
+     *                       or {@link #CHANGE_DELIVERY_ON_IDLE}
+     */
+    public void setChangeDelivery(int changeDelivery) {
+        this.changeDelivery = changeDelivery;
+        if (dateChangePending && changeDelivery == CHANGE_DELIVERY_IMMEDIATE) {
+            deliverDateChange();
+        }
+    }
+
+    public int getChangeDelivery() {
+        return changeDelivery;
+    }
+
+    private void dispatchDateChange() {
+        dateChangePending = true;
+        switch (changeDelivery) {
+            case CHANGE_DELIVERY_PER_FRAME:
+                if (!frameCallbackPending) {
+                    frameCallbackPending = true;
+                    ViewCompat.postOnAnimation(this, frameDelivery);
                 }
-                dayNumberPicker.setMinValue(1);
-                dayNumberPicker.setMaxValue(30);
-            } else if (month == 12) {
-                if (isLeapYear) {
-                    if (day == 31) {
-                        dayNumberPicker.setValue(30);
-                    }
-                    dayNumberPicker.setMinValue(1);
-                    dayNumberPicker.setMaxValue(30);
-                } else {
-                    if (day > 29) {
-                        dayNumberPicker.setValue(29);
-                    }
-                    dayNumberPicker.setMinValue(1);
-                    dayNumberPicker.setMaxValue(29);
+                break;
+            case CHANGE_DELIVERY_ON_IDLE:
+                if (scrollingWheels == 0) {
+                    deliverDateChange();
+                }
+                break;
+            default:
+                deliverDateChange();
+                break;
+        }
+    }
+
+    private void deliverDateChange() {
+        if (!dateChangePending) {
+            return;
+        }
+        dateChangePending = false;
+
+        // Set description
+        if (displayDescription) {
+            updateDescription();
+        }
+
+        if (mListener != null) {
+            mListener.onDateChanged(selectedYear, selectedMonth - 1, selectedDay);
+        }
+    }
+
+    private final Runnable frameDelivery = new Runnable() {
+        @Override
+        public void run() {
+            frameCallbackPending = false;
+            deliverDateChange();
+        }
+    };
+
+    private final NumberPicker.OnScrollListener scrollListener = new NumberPicker.OnScrollListener() {
+        @Override
+        public void onScrollStateChange(NumberPicker view, int scrollState) {
+            int wheel = view == yearNumberPicker ? 1 : view == monthNumberPicker ? 1 << 1 : 1 << 2;
+            if (scrollState == SCROLL_STATE_IDLE) {
+                scrollingWheels &= ~wheel;
+                if (scrollingWheels == 0 && changeDelivery == CHANGE_DELIVERY_ON_IDLE) {
+                    deliverDateChange();
                 }
+            } else {
+                scrollingWheels |= wheel;
             }
+        }
+    };
 
-            // Set description
-            if (displayDescription) {
-                descriptionTextView.setText(getDisplayPersianDate().getPersianLongDate());
+    /**
+     * Pending configuration of a {@link PersianDatePicker}, created by {@link #edit()}.
+     * Setters only record values; nothing touches the wheels until {@link #apply()}.
+     */
+    public class Config {
+
+        private int changes;
+        private int minYear;
+        private int maxYear;
+        private boolean minYearSet;
+        private boolean maxYearSet;
+        private Typeface typeFace = PersianDatePicker.this.typeFace;
+        private int dividerColor = PersianDatePicker.this.dividerColor;
+        private boolean displayDateSet;
+        private int displayYear;
+        private int displayMonth;
+        private int displayDay;
+        // year bounds recorded after the date override the range widened for that date
+        private boolean yearRangeAfterDate;
+
+        private Config() {
+        }
+
+        public Config setMinYear(int minYear) {
+            this.minYear = minYear;
+            minYearSet = true;
+            yearRangeAfterDate = displayDateSet;
+            changes |= CHANGED_YEAR_RANGE;
+            return this;
+        }
+
+        public Config setMaxYear(int maxYear) {
+            this.maxYear = maxYear;
+            maxYearSet = true;
+            yearRangeAfterDate = displayDateSet;
+            changes |= CHANGED_YEAR_RANGE;
+            return this;
+        }
+
+        public Config setTypeFace(Typeface typeFace) {
+            this.typeFace = typeFace;
+            changes |= CHANGED_TYPEFACE;
+            return this;
+        }
+
+        public Config setDividerColor(@ColorInt int color) {
+            this.dividerColor = color;
+            changes |= CHANGED_DIVIDER_COLOR;
+            return this;
+        }
+
+        public Config setDisplayPersianDate(PersianCalendar displayPersianDate) {
+            return setDisplayPersianDate(displayPersianDate.getPersianYear(), displayPersianDate.getPersianMonth(),
+                    displayPersianDate.getPersianDay());
+        }
+
+        /**
+         * @param month the Persian month (zero-based)
+         */
+        public Config setDisplayPersianDate(int year, int month, int day) {
+            displayYear = year;
+            displayMonth = month;
+            displayDay = day;
+            displayDateSet = true;
+            changes |= CHANGED_DATE;
+            return this;
+        }
+
+        public Config setDisplayDate(Date displayDate) {
+            return setDisplayPersianDate(new PersianCalendar(displayDate.getTime()));
+        }
+
+        /**
+         * Applies the recorded values, skipping the ones equal to the picker's current state.
+         */
+        public void apply() {
+            int applied = 0;
+            if (!yearRangeAfterDate) {
+                applied |= applyYearRange();
+            }
+            if ((changes & CHANGED_DATE) != 0 && displayDateSet) {
+                applied |= selectDate(displayYear, displayMonth + 1, displayDay);
+            }
+            if (yearRangeAfterDate) {
+                applied |= applyYearRange();
+            }
+            if ((changes & CHANGED_TYPEFACE) != 0 && typeFace != PersianDatePicker.this.typeFace) {
+                PersianDatePicker.this.typeFace = typeFace;
+                applied |= CHANGED_TYPEFACE;
+            }
+            if ((changes & CHANGED_DIVIDER_COLOR) != 0 && dividerColor != PersianDatePicker.this.dividerColor) {
+                PersianDatePicker.this.dividerColor = dividerColor;
+                applied |= CHANGED_DIVIDER_COLOR;
             }
+            changes = 0;
+            minYearSet = maxYearSet = yearRangeAfterDate = displayDateSet = false;
+            applyChanges(applied);
+        }
 
-            if (mListener != null) {
-                mListener.onDateChanged(yearNumberPicker.getValue(), monthNumberPicker.getValue() - 1,
-                        dayNumberPicker.getValue());
+        private int applyYearRange() {
+            int applied = 0;
+            if (minYearSet && minYear != PersianDatePicker.this.minYear) {
+                PersianDatePicker.this.minYear = minYear;
+                applied = CHANGED_YEAR_RANGE;
+            }
+            if (maxYearSet && maxYear != PersianDatePicker.this.maxYear) {
+                PersianDatePicker.this.maxYear = maxYear;
+                applied = CHANGED_YEAR_RANGE;
             }
+            return applied;
+        }
+    }
 
+    NumberPicker.OnValueChangeListener dateChangeListener = new NumberPicker.OnValueChangeListener() {
+
+        @Override
+        public void onValueChange(NumberPicker picker, int oldVal, int newVal) {
+            if (picker == yearNumberPicker) {
+                shiftYearWindow(newVal);
+            }
+
+            int year = yearNumberPicker.getValue();
+            int month = monthNumberPicker.getValue();
+            int monthLength = PersianCalendarUtils.persianMonthLength(year, month - 1);
+            if (dayNumberPicker.getValue() > monthLength) {
+                dayNumberPicker.setValue(monthLength);
+            }
+            dayNumberPicker.setMinValue(1);
+            dayNumberPicker.setMaxValue(monthLength);
+
+            selectedYear = year;
+            selectedMonth = month;
+            selectedDay = dayNumberPicker.getValue();
+
+            if (disabledDates != null && disabledDates.contains(selectedYear, selectedMonth - 1, selectedDay)) {
+                // skip over disabled dates in the direction the wheel was moved
+                applyChanges(selectDate(selectedYear, selectedMonth, selectedDay, scrolledForward(picker, oldVal, newVal)));
+            } else if (rangeMode) {
+                updateActiveEndpoint();
+            }
+
+            dispatchDateChange();
         }
 
     };
 
+    /**
+     * @return whether the wheel moved towards larger values. The listener is called for every
+     * step, so a jump of more than half the wheel is a wrap around, e.g. from Esfand (12) to
+     * Farvardin (1) when scrolling on.
+     */
+    private static boolean scrolledForward(NumberPicker picker, int oldVal, int newVal) {
+        int span = picker.getMaxValue() - picker.getMinValue() + 1;
+        int delta = newVal - oldVal;
+        return delta > 0 ? 2 * delta <= span : -2 * delta > span;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (frameCallbackPending) {
+            removeCallbacks(frameDelivery);
+            frameCallbackPending = false;
+        }
+        scrollingWheels = 0;
+        deliverDateChange();
+    }
+
     public void setOnDateChangedListener(OnDateChangedListener onDateChangedListener) {
         mListener = onDateChangedListener;
     }
@@ -336,41 +799,26 @@ public class PersianDatePicker extends LinearLayout {
         return displayPersianDate;
     }
 
-    public void setDisplayPersianDate(PersianCalendar displayPersianDate) {
-        int year = displayPersianDate.getPersianYear();
-        int month = displayPersianDate.getPersianMonth() + 1;
-        int day = displayPersianDate.getPersianDay();
-        if (month > 6 && month < 12 && day == 31) {
-            day = 30;
-        } else {
-            boolean isLeapYear = PersianCalendarUtils.isPersianLeapYear(year);
-            if (isLeapYear && day == 31) {
-                day = 30;
-            } else if (day > 29) {
-                day = 29;
-            }
-        }
-
-
-        selectedYear = year;
-        selectedMonth = month;
-        selectedDay = day;
-
-        // if you pass selected year before min year, then we need to push min year to before that
-        if (minYear > selectedYear) {
-            minYear = selectedYear - yearRange;
-            yearNumberPicker.setMinValue(minYear);
-        }
+    /**
+     * Writes the displayed date into the given calendar instead of allocating a new one.
+     *
+     * @return {@code persianCalendar}
+     */
+    public PersianCalendar getDisplayPersianDate(PersianCalendar persianCalendar) {
+        persianCalendar.setPersianDate(yearNumberPicker.getValue(), monthNumberPicker.getValue() - 1, dayNumberPicker.getValue());
+        return persianCalendar;
+    }
 
-        // if you pass selected year after max year, then we need to push max year to after that
-        if (maxYear < selectedYear) {
-            maxYear = selectedYear + yearRange;
-            yearNumberPicker.setMaxValue(maxYear);
-        }
+    public void setDisplayPersianDate(PersianCalendar displayPersianDate) {
+        setDisplayPersianDate(displayPersianDate.getPersianYear(), displayPersianDate.getPersianMonth(),
+                displayPersianDate.getPersianDay());
+    }
 
-        yearNumberPicker.setValue(year);
-        monthNumberPicker.setValue(month);
-        dayNumberPicker.setValue(day);
+    /**
+     * @param month the Persian month (zero-based)
+     */
+    public void setDisplayPersianDate(int year, int month, int day) {
+        applyChanges(selectDate(year, month + 1, day));
     }
 
     @Override
@@ -380,7 +828,12 @@ public class PersianDatePicker extends LinearLayout {
         SavedState ss = new SavedState(superState);
         // end
 
-        ss.datetime = this.getDisplayDate().getTime();
+        ss.date = PersianCalendarUtils.packDate(yearNumberPicker.getValue(), monthNumberPicker.getValue() - 1,
+                dayNumberPicker.getValue());
+        ss.rangeMode = rangeMode;
+        ss.rangeStart = packEndpoint(RANGE_START);
+        ss.rangeEnd = packEndpoint(RANGE_END);
+        ss.activeEndpoint = activeEndpoint;
         return ss;
     }
 
@@ -396,11 +849,35 @@ public class PersianDatePicker extends LinearLayout {
         super.onRestoreInstanceState(ss.getSuperState());
         // end
 
-        setDisplayDate(new Date(ss.datetime));
+        rangeMode = ss.rangeMode;
+        if (rangeMode) {
+            storeEndpoint(RANGE_START, ss.rangeStart);
+            storeEndpoint(RANGE_END, ss.rangeEnd);
+            activeEndpoint = ss.activeEndpoint;
+        } else {
+            activeEndpoint = RANGE_START;
+        }
+        // in range mode this is the active endpoint, already stored above
+        setDisplayPersianDate(PersianCalendarUtils.packedYear(ss.date), PersianCalendarUtils.packedMonth(ss.date),
+                PersianCalendarUtils.packedDay(ss.date));
+    }
+
+    private int packEndpoint(int endpoint) {
+        return PersianCalendarUtils.packDate(rangeYears[endpoint], rangeMonths[endpoint] - 1, rangeDays[endpoint]);
+    }
+
+    private void storeEndpoint(int endpoint, int date) {
+        storeEndpoint(endpoint, PersianCalendarUtils.packedYear(date), PersianCalendarUtils.packedMonth(date) + 1,
+                PersianCalendarUtils.packedDay(date));
     }
 
     static class SavedState extends BaseSavedState {
-        long datetime;
+        // packed, so restoring does not depend on the time zone
+        int date;
+        boolean rangeMode;
+        int rangeStart;
+        int rangeEnd;
+        int activeEndpoint;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -408,13 +885,21 @@ public class PersianDatePicker extends LinearLayout {
 
         private SavedState(Parcel in) {
             super(in);
-            this.datetime = in.readLong();
+            this.date = in.readInt();
+            this.rangeMode = in.readInt() != 0;
+            this.rangeStart = in.readInt();
+            this.rangeEnd = in.readInt();
+            this.activeEndpoint = in.readInt();
         }
 
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeLong(this.datetime);
+            out.writeInt(this.date);
+            out.writeInt(this.rangeMode ? 1 : 0);
+            out.writeInt(this.rangeStart);
+            out.writeInt(this.rangeEnd);
+            out.writeInt(this.activeEndpoint);
         }
 
         // required field that makes Parcelables from a Parcel
@@ -9,15 +9,18 @@ import android.support.annotation.StringRes;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.widget.AppCompatButton;
+import android.util.DisplayMetrics;
 import android.view.View;
 import android.widget.TextView;
 
 import com.android.persiandatepicker.R;
 
-import java.util.Date;
-
 import java.util.PersianCalendar;
+import java.util.persian.PersianCalendarConstants;
+import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianDateSet;
 import java.util.persian.PersianHelper;
+import java.util.persian.PersianToday;
 
 /**
  * Created by aliabdolahi on 1/23/17.
@@ -31,15 +34,39 @@ public class PersianDatePickerDialog {
     private String positiveButtonString = "تایید";
     private String negativeButtonString = "انصراف";
     private OnDateSetListener onDateSetListener;
+    private OnDateRangeSetListener onDateRangeSetListener;
+    private boolean rangeMode;
+    private PersianDateSet disabledDates;
+    private PersianCalendar initRangeStart;
+    private PersianCalendar initRangeEnd;
+    private String rangeStartString = "از";
+    private String rangeEndString = "تا";
     private int maxYear = 0;
     private int minYear = 0;
     private PersianCalendar initDate;
     private PersianCalendar pCalendar;
-    public static Typeface typeFace;
+    private Typeface typeFace;
     private String todayButtonString = "امروز";
     private boolean todayButtonVisibility = false;
     private int actionColor = Color.GRAY;
 
+    // kept alive across show() calls, see prewarm()
+    private View view;
+    private PersianDatePicker datePicker;
+    private TextView dateText;
+    private AppCompatButton positiveButton;
+    private AppCompatButton negativeButton;
+    private AppCompatButton todayButton;
+    private AlertDialog dialog;
+    private boolean decorationChanged = true;
+    private int changeDelivery = PersianDatePicker.CHANGE_DELIVERY_PER_FRAME;
+    private final ReusableText dateTextBuffer = new ReusableText();
+    private View rangeLayout;
+    private TextView rangeStartText;
+    private TextView rangeEndText;
+    private final ReusableText rangeStartBuffer = new ReusableText();
+    private final ReusableText rangeEndBuffer = new ReusableText();
+
     public PersianDatePickerDialog(Context context) {
         this.context = context;
     }
@@ -50,6 +77,41 @@ public class PersianDatePickerDialog {
     }
 
 
+    /**
+     * Switches the dialog to range mode, where the user picks a start and an end date in the same
+     * view. The range is reported to the listener set by
+     * {@link #setOnDateRangeSetListener(OnDateRangeSetListener)}.
+     */
+    public PersianDatePickerDialog setRangeMode(boolean rangeMode) {
+        this.rangeMode = rangeMode;
+        return this;
+    }
+
+    /**
+     * Dates the user cannot pick, see {@link PersianDatePicker#setDisabledDates(PersianDateSet)}.
+     */
+    public PersianDatePickerDialog setDisabledDates(PersianDateSet disabledDates) {
+        this.disabledDates = disabledDates;
+        return this;
+    }
+
+    public PersianDatePickerDialog setOnDateRangeSetListener(OnDateRangeSetListener onDateRangeSetListener) {
+        this.onDateRangeSetListener = onDateRangeSetListener;
+        return this;
+    }
+
+    public PersianDatePickerDialog setInitRange(PersianCalendar start, PersianCalendar end) {
+        this.initRangeStart = start;
+        this.initRangeEnd = end;
+        return this;
+    }
+
+    public PersianDatePickerDialog setRangeLabels(String startLabel, String endLabel) {
+        this.rangeStartString = startLabel;
+        this.rangeEndString = endLabel;
+        return this;
+    }
+
     public PersianDatePickerDialog setMaxYear(int maxYear) {
         this.maxYear = maxYear;
         return this;
@@ -57,6 +119,7 @@ public class PersianDatePickerDialog {
 
     public PersianDatePickerDialog setTypeFace(Typeface typeFace) {
         this.typeFace = typeFace;
+        decorationChanged = true;
         return this;
     }
 
@@ -72,110 +135,125 @@ public class PersianDatePickerDialog {
 
     public PersianDatePickerDialog setPositiveButtonString(String positiveButtonString) {
         this.positiveButtonString = positiveButtonString;
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setPositiveButtonResource(@StringRes int positiveButton) {
         this.positiveButtonString = context.getString(positiveButton);
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setTodayButtonVisible(boolean todayButtonVisiblity) {
         this.todayButtonVisibility = todayButtonVisiblity;
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setTodayButton(String todayButton) {
         this.todayButtonString = todayButton;
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setTodayButtonResource(@StringRes int todayButton) {
         this.todayButtonString = context.getString(todayButton);
+        decorationChanged = true;
         return this;
     }
 
 
     public PersianDatePickerDialog setNegativeButton(String negativeButton) {
         this.negativeButtonString = negativeButton;
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setNegativeButtonResource(@StringRes int negativeButton) {
         this.negativeButtonString = context.getString(negativeButton);
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setActionTextColor(@ColorInt int colorInt) {
         this.actionColor = colorInt;
+        decorationChanged = true;
         return this;
     }
 
     public PersianDatePickerDialog setActionTextColorResource(@ColorRes int colorInt) {
         this.actionColor = ContextCompat.getColor(context, colorInt);
+        decorationChanged = true;
         return this;
     }
 
 
-    public void show() {
-
-        pCalendar = new PersianCalendar();
-
-        View v = View.inflate(context, R.layout.dialog_picker, null);
-        final PersianDatePicker datePicker = v.findViewById(R.id.datePicker);
-        final TextView dateText = v.findViewById(R.id.dateText);
-        final AppCompatButton positiveButton = v.findViewById(R.id.positive_button);
-        final AppCompatButton negativeButton = v.findViewById(R.id.negative_button);
-        final AppCompatButton todayButton = v.findViewById(R.id.today_button);
-
-
-        if (maxYear > 0) {
-            datePicker.setMaxYear(maxYear);
-        } else if (maxYear == THIS_YEAR) {
-            datePicker.setMaxYear(pCalendar.getPersianYear());
-        }
-
-        if (minYear > 0) {
-            datePicker.setMinYear(minYear);
-        }
+    /**
+     * Inflates, binds and measures the dialog ahead of time so that later calls to
+     * {@link #show()} only rebind the date and the year bounds.
+     */
+    public PersianDatePickerDialog prewarm() {
+        ensureDialog();
+        bindDecoration();
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        view.measure(View.MeasureSpec.makeMeasureSpec(metrics.widthPixels, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(metrics.heightPixels, View.MeasureSpec.AT_MOST));
+        return this;
+    }
 
-        if (initDate != null) {
-            datePicker.setDisplayPersianDate(initDate);
-        }
+    public void show() {
+        ensureDialog();
+        bindDecoration();
+        bindDate();
+        dialog.show();
+    }
 
-        if (typeFace != null) {
-            dateText.setTypeface(typeFace);
-            positiveButton.setTypeface(typeFace);
-            negativeButton.setTypeface(typeFace);
-            todayButton.setTypeface(typeFace);
-            datePicker.setTypeFace(typeFace);
+    private void ensureDialog() {
+        if (dialog != null) {
+            return;
         }
 
-        positiveButton.setTextColor(actionColor);
-        negativeButton.setTextColor(actionColor);
-        todayButton.setTextColor(actionColor);
-
-        positiveButton.setText(positiveButtonString);
-        negativeButton.setText(negativeButtonString);
-        todayButton.setText(todayButtonString);
+        pCalendar = new PersianCalendar();
 
-        if (todayButtonVisibility) {
-            todayButton.setVisibility(View.VISIBLE);
-        }
+        view = View.inflate(context, R.layout.dialog_picker, null);
+        datePicker = view.findViewById(R.id.datePicker);
+        dateText = view.findViewById(R.id.dateText);
+        positiveButton = view.findViewById(R.id.positive_button);
+        negativeButton = view.findViewById(R.id.negative_button);
+        todayButton = view.findViewById(R.id.today_button);
+        rangeLayout = view.findViewById(R.id.rangeLayout);
+        rangeStartText = view.findViewById(R.id.rangeStartText);
+        rangeEndText = view.findViewById(R.id.rangeEndText);
 
-        pCalendar = datePicker.getDisplayPersianDate();
-        updateView(dateText);
+        datePicker.setChangeDelivery(changeDelivery);
 
         datePicker.setOnDateChangedListener(new PersianDatePicker.OnDateChangedListener() {
             @Override
             public void onDateChanged(int newYear, int newMonth, int newDay) {
-                pCalendar.setPersianDate(newYear, newMonth, newDay);
-                updateView(dateText);
+                updateView(newYear, newMonth, newDay);
+                if (rangeMode) {
+                    updateRangeView();
+                }
+            }
+        });
+
+        rangeStartText.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                selectEndpoint(PersianDatePicker.RANGE_START);
+            }
+        });
+
+        rangeEndText.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                selectEndpoint(PersianDatePicker.RANGE_END);
             }
         });
 
-        final AlertDialog dialog = new AlertDialog.Builder(context)
-                .setView(v)
+        dialog = new AlertDialog.Builder(context)
+                .setView(view)
                 .setCancelable(true)
                 .create();
 
@@ -185,6 +263,9 @@ public class PersianDatePickerDialog {
                 if (onDateSetListener != null) {
                     onDateSetListener.onDismissed();
                 }
+                if (onDateRangeSetListener != null) {
+                    onDateRangeSetListener.onDismissed();
+                }
                 dialog.dismiss();
             }
         });
@@ -192,7 +273,13 @@ public class PersianDatePickerDialog {
         positiveButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if (onDateSetListener != null) {
+                if (rangeMode) {
+                    if (onDateRangeSetListener != null) {
+                        onDateRangeSetListener.onDateRangeSet(datePicker,
+                                datePicker.getRangeEndpoint(PersianDatePicker.RANGE_START, new PersianCalendar()),
+                                datePicker.getRangeEndpoint(PersianDatePicker.RANGE_END, new PersianCalendar()));
+                    }
+                } else if (onDateSetListener != null) {
                     onDateSetListener.onDateSet(datePicker, datePicker.getDisplayPersianDate());
                 }
                 dialog.dismiss();
@@ -203,31 +290,154 @@ public class PersianDatePickerDialog {
             @Override
             public void onClick(View view) {
 
-                datePicker.setDisplayDate(new Date());
+                int today = PersianToday.getDefault().getDate();
+                PersianDatePicker.Config config = datePicker.edit().setDisplayPersianDate(
+                        PersianCalendarUtils.packedYear(today), PersianCalendarUtils.packedMonth(today),
+                        PersianCalendarUtils.packedDay(today));
 
                 if (maxYear > 0) {
-                    datePicker.setMaxYear(maxYear);
+                    config.setMaxYear(maxYear);
                 }
 
                 if (minYear > 0) {
-                    datePicker.setMinYear(minYear);
+                    config.setMinYear(minYear);
                 }
+                config.apply();
 
-                pCalendar = datePicker.getDisplayPersianDate();
-                updateView(dateText);
+                datePicker.getDisplayPersianDate(pCalendar);
+                updateView(pCalendar.getPersianYear(), pCalendar.getPersianMonth(), pCalendar.getPersianDay());
+                if (rangeMode) {
+                    updateRangeView();
+                }
             }
         });
+    }
 
-        dialog.show();
+    /**
+     * Applies texts, colours and typeface; skipped when none of them changed since the last show.
+     */
+    private void bindDecoration() {
+        if (!decorationChanged) {
+            return;
+        }
+        decorationChanged = false;
+
+        if (typeFace != null) {
+            dateText.setTypeface(typeFace);
+            rangeStartText.setTypeface(typeFace);
+            rangeEndText.setTypeface(typeFace);
+            positiveButton.setTypeface(typeFace);
+            negativeButton.setTypeface(typeFace);
+            todayButton.setTypeface(typeFace);
+            datePicker.setTypeFace(typeFace);
+        }
+
+        positiveButton.setTextColor(actionColor);
+        negativeButton.setTextColor(actionColor);
+        todayButton.setTextColor(actionColor);
+
+        positiveButton.setText(positiveButtonString);
+        negativeButton.setText(negativeButtonString);
+        todayButton.setText(todayButtonString);
+
+        todayButton.setVisibility(todayButtonVisibility ? View.VISIBLE : View.GONE);
     }
 
-    private void updateView(TextView dateText) {
-        String date =
-                pCalendar.getPersianWeekDayName() + " " +
-                        pCalendar.getPersianDay() + " " +
-                        pCalendar.getPersianMonthName() + " " +
-                        pCalendar.getPersianYear();
-        dateText.setText(PersianHelper.toPersianNumber(date));
+    private void bindDate() {
+        // read once, so a midnight in between cannot mix two days
+        int today = PersianToday.getDefault().getDate();
+        int todayYear = PersianCalendarUtils.packedYear(today);
+        int todayMonth = PersianCalendarUtils.packedMonth(today);
+        int todayDay = PersianCalendarUtils.packedDay(today);
+        datePicker.setDisabledDates(disabledDates);
+
+        // configure the picker in one pass instead of a full update per property
+        PersianDatePicker.Config config = datePicker.edit();
+        if (maxYear > 0) {
+            config.setMaxYear(maxYear);
+        } else if (maxYear == THIS_YEAR) {
+            config.setMaxYear(todayYear);
+        }
+
+        if (minYear > 0) {
+            config.setMinYear(minYear);
+        }
+
+        if (rangeMode) {
+            config.apply();
+            datePicker.setRangeMode(true);
+            PersianCalendar start = initRangeStart;
+            if (start == null) {
+                start = pCalendar;
+                start.setPersianDate(todayYear, todayMonth, todayDay);
+            }
+            datePicker.setRange(start, initRangeEnd != null ? initRangeEnd : start);
+        } else {
+            if (initDate != null) {
+                config.setDisplayPersianDate(initDate);
+            } else {
+                config.setDisplayPersianDate(todayYear, todayMonth, todayDay);
+            }
+            config.apply();
+            datePicker.setRangeMode(false);
+        }
+        rangeLayout.setVisibility(rangeMode ? View.VISIBLE : View.GONE);
+
+        datePicker.getDisplayPersianDate(pCalendar);
+        updateView(pCalendar.getPersianYear(), pCalendar.getPersianMonth(), pCalendar.getPersianDay());
+        if (rangeMode) {
+            updateRangeView();
+        }
+    }
+
+    private void selectEndpoint(int endpoint) {
+        datePicker.setActiveEndpoint(endpoint);
+        datePicker.getDisplayPersianDate(pCalendar);
+        updateView(pCalendar.getPersianYear(), pCalendar.getPersianMonth(), pCalendar.getPersianDay());
+        updateRangeView();
+    }
+
+    private void updateRangeView() {
+        StringBuilder start = rangeStartBuffer.reset().append(rangeStartString).append(' ');
+        appendDate(start, datePicker.getRangeYear(PersianDatePicker.RANGE_START),
+                datePicker.getRangeMonth(PersianDatePicker.RANGE_START), datePicker.getRangeDay(PersianDatePicker.RANGE_START));
+        rangeStartBuffer.applyTo(rangeStartText);
+
+        StringBuilder end = rangeEndBuffer.reset().append(rangeEndString).append(' ');
+        appendDate(end, datePicker.getRangeYear(PersianDatePicker.RANGE_END),
+                datePicker.getRangeMonth(PersianDatePicker.RANGE_END), datePicker.getRangeDay(PersianDatePicker.RANGE_END));
+        rangeEndBuffer.applyTo(rangeEndText);
+
+        boolean startActive = datePicker.getActiveEndpoint() == PersianDatePicker.RANGE_START;
+        rangeStartText.setTextColor(startActive ? actionColor : Color.LTGRAY);
+        rangeEndText.setTextColor(startActive ? Color.LTGRAY : actionColor);
+    }
+
+    private static void appendDate(StringBuilder out, int year, int month, int day) {
+        PersianHelper.appendNumber(out, day, 1, true).append(' ');
+        out.append(PersianCalendarConstants.persianMonthNames[month]).append(' ');
+        PersianHelper.appendNumber(out, year, 1, true);
+    }
+
+    private void updateView(int year, int month, int day) {
+        StringBuilder date = dateTextBuffer.reset();
+        date.append(PersianCalendarConstants.persianWeekDays[PersianCalendarUtils.persianWeekDay(PersianCalendarUtils.persianToEpochDay(year, month, day))])
+                .append(' ');
+        appendDate(date, year, month, day);
+        dateTextBuffer.applyTo(dateText);
+    }
+
+    /**
+     * Sets how date changes are reported while the wheels scroll, see
+     * {@link PersianDatePicker#setChangeDelivery(int)}. Defaults to
+     * {@link PersianDatePicker#CHANGE_DELIVERY_PER_FRAME} for the dialog.
+     */
+    public PersianDatePickerDialog setChangeDelivery(int changeDelivery) {
+        this.changeDelivery = changeDelivery;
+        if (datePicker != null) {
+            datePicker.setChangeDelivery(changeDelivery);
+        }
+        return this;
     }
 
     /**
@@ -243,4 +453,18 @@ public class PersianDatePickerDialog {
         void onDismissed();
     }
 
+    /**
+     * The listener used in range mode to indicate the user has finished selecting a range.
+     */
+    public interface OnDateRangeSetListener {
+        /**
+         * @param datePickerView the picker associated with the dialog
+         * @param start          the first day of the range
+         * @param end            the last day of the range, never before {@code start}
+         */
+        void onDateRangeSet(PersianDatePicker datePickerView, PersianCalendar start, PersianCalendar end);
+
+        void onDismissed();
+    }
+
 }
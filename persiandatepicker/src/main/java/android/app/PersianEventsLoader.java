@@ -0,0 +1,87 @@
+package android.app;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+
+import com.android.persiandatepicker.R;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.persian.PersianEvents;
+
+/**
+ * Opens the holidays and occasions bundled as {@code res/raw/persian_events}. The resource is
+ * memory mapped when the APK stores it uncompressed ({@code aaptOptions { noCompress 'bin' }}),
+ * and copied once into a direct buffer otherwise; either way it stays off the Java heap.
+ */
+public final class PersianEventsLoader {
+
+    private static volatile PersianEvents events;
+
+    private PersianEventsLoader() {
+    }
+
+    /**
+     * @return the bundled dataset, opened on first use and shared afterwards
+     */
+    public static PersianEvents get(Context context) {
+        PersianEvents result = events;
+        if (result == null) {
+            synchronized (PersianEventsLoader.class) {
+                result = events;
+                if (result == null) {
+                    try {
+                        result = PersianEvents.read(open(context.getResources(), R.raw.persian_events));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("cannot read persian events", e);
+                    }
+                    events = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static ByteBuffer open(Resources resources, int id) throws IOException {
+        AssetFileDescriptor descriptor = null;
+        try {
+            descriptor = resources.openRawResourceFd(id);
+        } catch (Resources.NotFoundException e) {
+            // compressed in the APK, cannot be mapped
+        }
+        if (descriptor != null) {
+            FileInputStream stream = descriptor.createInputStream();
+            try {
+                return stream.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength());
+            } finally {
+                stream.close();
+                descriptor.close();
+            }
+        }
+
+        InputStream stream = resources.openRawResource(id);
+        try {
+            byte[] chunk = new byte[8192];
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(stream.available(), chunk.length));
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                if (buffer.remaining() < read) {
+                    ByteBuffer grown = ByteBuffer.allocateDirect(2 * buffer.capacity() + read);
+                    buffer.flip();
+                    grown.put(buffer);
+                    buffer = grown;
+                }
+                buffer.put(chunk, 0, read);
+            }
+            buffer.flip();
+            return buffer;
+        } finally {
+            stream.close();
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package android.app;
+
+import android.widget.NumberPicker;
+
+import java.util.Arrays;
+import java.util.persian.PersianHelper;
+
+/**
+ * Formats wheel values with Persian digits. Each label is written once with
+ * {@link PersianHelper#appendNumber} and kept, so scrolling a wheel reuses the same Strings
+ * instead of building two new ones per value shown.
+ */
+class PersianNumberFormatter implements NumberPicker.Formatter {
+
+    private final StringBuilder label = new StringBuilder(4);
+    // labels by value, grown up to the largest value asked for
+    private String[] labels = new String[32];
+
+    @Override
+    public String format(int value) {
+        if (value < 0) {
+            return build(value);
+        }
+        if (value >= labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(value + 1, labels.length * 2));
+        }
+        String text = labels[value];
+        if (text == null) {
+            text = build(value);
+            labels[value] = text;
+        }
+        return text;
+    }
+
+    private String build(int value) {
+        label.setLength(0);
+        return PersianHelper.appendNumber(label, value, 1, true).toString();
+    }
+}
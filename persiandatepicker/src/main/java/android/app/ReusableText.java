@@ -0,0 +1,31 @@
+package android.app;
+
+import android.widget.TextView;
+
+/**
+ * A {@link StringBuilder} paired with a char buffer that is handed to
+ * {@link TextView#setText(char[], int, int)}, so texts that change on every wheel step are
+ * written without allocating a new String each time.
+ */
+class ReusableText {
+
+    final StringBuilder builder = new StringBuilder(64);
+    private char[] chars = new char[64];
+
+    /**
+     * Clears the builder for the next text.
+     */
+    StringBuilder reset() {
+        builder.setLength(0);
+        return builder;
+    }
+
+    void applyTo(TextView textView) {
+        int length = builder.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        builder.getChars(0, length, chars, 0);
+        textView.setText(chars, 0, length);
+    }
+}
@@ -0,0 +1,199 @@
+package android.app.view;
+
+import android.app.PersianDatePickerDialog;
+import android.content.Context;
+import android.graphics.Typeface;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.PersianCalendar;
+import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianToday;
+
+/**
+ * Pages through Persian months, one {@link PersianMonthView} per page. Month views that scroll
+ * out are kept and rebound to the next month shown instead of being inflated again. A tap on a
+ * day is reported to the {@link PersianDatePickerDialog.OnDateSetListener}.
+ * <pre>
+ * {@code
+ * monthPager.setYearRange(1300, 1410);
+ * monthPager.setSelectedDate(1403, 0, 1);
+ * monthPager.setOnDateSetListener(listener);
+ * }
+ * </pre>
+ */
+public class PersianMonthPager extends ViewPager {
+
+    private final MonthAdapter adapter = new MonthAdapter();
+
+    private int minYear;
+    private int maxYear;
+    private int selectedYear;
+    private int selectedMonth;
+    private int selectedDay;
+    private Typeface typeFace;
+    private PersianDatePickerDialog.OnDateSetListener onDateSetListener;
+
+    public PersianMonthPager(Context context) {
+        this(context, null);
+    }
+
+    public PersianMonthPager(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        int today = PersianToday.getDefault().getDate();
+        int todayYear = PersianCalendarUtils.packedYear(today);
+        minYear = todayYear - 10;
+        maxYear = todayYear + 10;
+        setAdapter(adapter);
+        setCurrentItem(positionOf(todayYear, PersianCalendarUtils.packedMonth(today)), false);
+    }
+
+    /**
+     * Limits the pages to the months of {@code minYear} to {@code maxYear}, both inclusive.
+     */
+    public void setYearRange(int minYear, int maxYear) {
+        int year = getYear();
+        int month = getMonth();
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        adapter.notifyDataSetChanged();
+        showMonth(Math.max(minYear, Math.min(maxYear, year)), month);
+    }
+
+    /**
+     * Selects the given date and pages to its month.
+     *
+     * @param month the Persian month (zero-based)
+     */
+    public void setSelectedDate(int year, int month, int day) {
+        selectedYear = year;
+        selectedMonth = month;
+        selectedDay = day;
+        for (PersianMonthView view : adapter.attached) {
+            bindSelection(view);
+        }
+        showMonth(year, month);
+    }
+
+    /**
+     * Pages to the given month without changing the selection.
+     *
+     * @param month the Persian month (zero-based)
+     */
+    public void showMonth(int year, int month) {
+        setCurrentItem(positionOf(year, month), false);
+    }
+
+    /**
+     * @return the Persian year of the current page
+     */
+    public int getYear() {
+        return minYear + getCurrentItem() / 12;
+    }
+
+    /**
+     * @return the Persian month (zero-based) of the current page
+     */
+    public int getMonth() {
+        return getCurrentItem() % 12;
+    }
+
+    public void setTypeFace(Typeface typeFace) {
+        this.typeFace = typeFace;
+        for (PersianMonthView view : adapter.attached) {
+            view.setTypeFace(typeFace);
+        }
+    }
+
+    /**
+     * @param onDateSetListener receives the tapped date; its {@code datePickerView} argument is
+     *                          {@code null} as there are no wheels involved
+     */
+    public void setOnDateSetListener(PersianDatePickerDialog.OnDateSetListener onDateSetListener) {
+        this.onDateSetListener = onDateSetListener;
+    }
+
+    private int positionOf(int year, int month) {
+        return (year - minYear) * 12 + month;
+    }
+
+    private void bindSelection(PersianMonthView view) {
+        boolean selectedMonthShown = view.getYear() == selectedYear && view.getMonth() == selectedMonth;
+        view.setSelectedDay(selectedMonthShown ? selectedDay : 0);
+    }
+
+    private final PersianMonthView.OnDaySelectedListener daySelectedListener = new PersianMonthView.OnDaySelectedListener() {
+        @Override
+        public void onDaySelected(PersianMonthView view, int year, int month, int day) {
+            selectedYear = year;
+            selectedMonth = month;
+            selectedDay = day;
+            for (PersianMonthView attachedView : adapter.attached) {
+                if (attachedView != view) {
+                    bindSelection(attachedView);
+                }
+            }
+            if (onDateSetListener != null) {
+                PersianCalendar persianCalendar = new PersianCalendar();
+                persianCalendar.setPersianDate(year, month, day);
+                onDateSetListener.onDateSet(null, persianCalendar);
+            }
+        }
+    };
+
+    private class MonthAdapter extends PagerAdapter {
+
+        // views currently in the pager, and views scrolled out waiting for reuse
+        final ArrayList<PersianMonthView> attached = new ArrayList<>();
+        private final ArrayList<PersianMonthView> recycled = new ArrayList<>();
+
+        @Override
+        public int getCount() {
+            return Math.max(0, (maxYear - minYear + 1) * 12);
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            PersianMonthView view;
+            if (recycled.isEmpty()) {
+                view = new PersianMonthView(container.getContext());
+                view.setOnDaySelectedListener(daySelectedListener);
+            } else {
+                view = recycled.remove(recycled.size() - 1);
+            }
+            if (typeFace != null) {
+                view.setTypeFace(typeFace);
+            }
+            view.setMonth(minYear + position / 12, position % 12);
+            bindSelection(view);
+            container.addView(view);
+            attached.add(view);
+            return view;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            PersianMonthView view = (PersianMonthView) object;
+            container.removeView(view);
+            attached.remove(view);
+            recycled.add(view);
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            PersianMonthView view = (PersianMonthView) object;
+            int position = positionOf(view.getYear(), view.getMonth());
+            return position >= 0 && position < getCount() ? position : POSITION_NONE;
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package android.app.view;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.ColorInt;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.android.persiandatepicker.R;
+
+import java.util.persian.PersianCalendarConstants;
+import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianHelper;
+import java.util.persian.PersianMonthMatrix;
+import java.util.persian.PersianToday;
+
+/**
+ * Draws a whole Persian month as a 7 x 6 grid of days, weeks starting on Saturday, with a
+ * header row of week day initials. Everything is drawn on the canvas of this single view; the
+ * day labels are laid out once and only the month's offsets are recomputed on
+ * {@link #setMonth(int, int)}.
+ */
+public class PersianMonthView extends View {
+
+    private static final int COLUMNS = PersianMonthMatrix.COLUMNS;
+    private static final int ROWS = PersianMonthMatrix.ROWS;
+
+    // "1".."31" in Persian digits, shared by every month view
+    private static final char[][] dayLabels = new char[32][];
+    // initials of persianWeekDays, Saturday first
+    private static final char[][] weekDayLabels = new char[COLUMNS][];
+
+    static {
+        StringBuilder label = new StringBuilder(2);
+        for (int day = 1; day < dayLabels.length; day++) {
+            label.setLength(0);
+            PersianHelper.appendNumber(label, day, 1, true);
+            dayLabels[day] = label.toString().toCharArray();
+        }
+        for (int i = 0; i < COLUMNS; i++) {
+            weekDayLabels[i] = new char[]{PersianCalendarConstants.persianWeekDays[i].charAt(0)};
+        }
+    }
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint selectionPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // label widths for the current typeface and text size
+    private final float[] dayLabelWidths = new float[dayLabels.length];
+    private final float[] weekDayLabelWidths = new float[COLUMNS];
+    private float textBaselineOffset;
+
+    private int textColor;
+    private int outOfMonthTextColor;
+    private int selectedTextColor;
+    private int headerTextColor;
+
+    private PersianMonthMatrix matrix;
+    private int selectedDay;
+
+    private float cellWidth;
+    private float cellHeight;
+
+    private OnDaySelectedListener onDaySelectedListener;
+
+    public PersianMonthView(Context context) {
+        this(context, null, 0);
+    }
+
+    public PersianMonthView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public PersianMonthView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+
+        float density = context.getResources().getDisplayMetrics().scaledDensity;
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PersianMonthView, 0, 0);
+        textColor = a.getColor(R.styleable.PersianMonthView_dayTextColor, Color.BLACK);
+        outOfMonthTextColor = a.getColor(R.styleable.PersianMonthView_outOfMonthTextColor, Color.GRAY);
+        selectedTextColor = a.getColor(R.styleable.PersianMonthView_selectedDayTextColor, Color.WHITE);
+        headerTextColor = a.getColor(R.styleable.PersianMonthView_weekDayTextColor, Color.GRAY);
+        selectionPaint.setColor(a.getColor(R.styleable.PersianMonthView_selectionColor, Color.GRAY));
+        textPaint.setTextSize(a.getDimension(R.styleable.PersianMonthView_dayTextSize, 14 * density));
+        a.recycle();
+
+        measureLabels();
+
+        int today = PersianToday.getDefault().getDate();
+        setMonth(PersianCalendarUtils.packedYear(today), PersianCalendarUtils.packedMonth(today));
+    }
+
+    /**
+     * Shows the given month; the selection is cleared.
+     *
+     * @param year  the Persian year
+     * @param month the Persian month (zero-based)
+     */
+    public void setMonth(int year, int month) {
+        this.matrix = PersianMonthMatrix.of(year, month);
+        this.selectedDay = 0;
+        invalidate();
+    }
+
+    public int getYear() {
+        return matrix.getYear();
+    }
+
+    /**
+     * @return the Persian month (zero-based)
+     */
+    public int getMonth() {
+        return matrix.getMonth();
+    }
+
+    /**
+     * @param day day of the shown month to highlight, or 0 for none
+     */
+    public void setSelectedDay(int day) {
+        if (day != selectedDay) {
+            selectedDay = day >= 1 && day <= matrix.getMonthLength() ? day : 0;
+            invalidate();
+        }
+    }
+
+    public int getSelectedDay() {
+        return selectedDay;
+    }
+
+    public void setTypeFace(Typeface typeFace) {
+        textPaint.setTypeface(typeFace);
+        measureLabels();
+        invalidate();
+    }
+
+    public void setTextSize(float textSize) {
+        textPaint.setTextSize(textSize);
+        measureLabels();
+        requestLayout();
+        invalidate();
+    }
+
+    public void setTextColor(@ColorInt int textColor) {
+        this.textColor = textColor;
+        invalidate();
+    }
+
+    public void setSelectionColor(@ColorInt int selectionColor) {
+        selectionPaint.setColor(selectionColor);
+        invalidate();
+    }
+
+    public void setOnDaySelectedListener(OnDaySelectedListener onDaySelectedListener) {
+        this.onDaySelectedListener = onDaySelectedListener;
+    }
+
+    private void measureLabels() {
+        for (int day = 1; day < dayLabels.length; day++) {
+            dayLabelWidths[day] = textPaint.measureText(dayLabels[day], 0, dayLabels[day].length);
+        }
+        for (int i = 0; i < COLUMNS; i++) {
+            weekDayLabelWidths[i] = textPaint.measureText(weekDayLabels[i], 0, weekDayLabels[i].length);
+        }
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textBaselineOffset = -(metrics.ascent + metrics.descent) / 2;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int preferredHeight = (int) (textPaint.getTextSize() * 2.5f * (ROWS + 1)) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(preferredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        cellWidth = (float) (w - getPaddingLeft() - getPaddingRight()) / COLUMNS;
+        cellHeight = (float) (h - getPaddingTop() - getPaddingBottom()) / (ROWS + 1);
+    }
+
+    /**
+     * Horizontal center of a column; columns run right to left, Saturday on the right.
+     */
+    private float columnCenter(int column) {
+        return getWidth() - getPaddingRight() - (column + 0.5f) * cellWidth;
+    }
+
+    private float rowCenter(int row) {
+        return getPaddingTop() + (row + 0.5f) * cellHeight;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float baseline = rowCenter(0) + textBaselineOffset;
+        textPaint.setColor(headerTextColor);
+        for (int column = 0; column < COLUMNS; column++) {
+            canvas.drawText(weekDayLabels[column], 0, weekDayLabels[column].length,
+                    columnCenter(column) - weekDayLabelWidths[column] / 2, baseline, textPaint);
+        }
+
+        float radius = Math.min(cellWidth, cellHeight) * 0.4f;
+        for (int cell = 0; cell < PersianMonthMatrix.CELLS; cell++) {
+            int day = matrix.getDayOfMonth(cell);
+            boolean inMonth = matrix.isInMonth(cell);
+            int color = inMonth ? textColor : outOfMonthTextColor;
+
+            float x = columnCenter(cell % COLUMNS);
+            float y = rowCenter(cell / COLUMNS + 1);
+            if (inMonth && day == selectedDay) {
+                canvas.drawCircle(x, y, radius, selectionPaint);
+                color = selectedTextColor;
+            }
+            textPaint.setColor(color);
+            canvas.drawText(dayLabels[day], 0, dayLabels[day].length,
+                    x - dayLabelWidths[day] / 2, y + textBaselineOffset, textPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                return true;
+            case MotionEvent.ACTION_UP:
+                int day = dayAt(event.getX(), event.getY());
+                if (day > 0) {
+                    setSelectedDay(day);
+                    if (onDaySelectedListener != null) {
+                        onDaySelectedListener.onDaySelected(this, matrix.getYear(), matrix.getMonth(), day);
+                    }
+                    performClick();
+                }
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * @return the day of the shown month under the given point, or 0 if there is none
+     */
+    private int dayAt(float x, float y) {
+        // floor, not a cast: a cast rounds taps in the padding towards zero, into the edge cells
+        int row = (int) Math.floor((y - getPaddingTop()) / cellHeight) - 1;
+        int column = (int) Math.floor((getWidth() - getPaddingRight() - x) / cellWidth);
+        if (row < 0 || row >= ROWS || column < 0 || column >= COLUMNS) {
+            return 0;
+        }
+        int cell = row * COLUMNS + column;
+        return matrix.isInMonth(cell) ? matrix.getDayOfMonth(cell) : 0;
+    }
+
+    /**
+     * Callback for a tap on a day of the shown month.
+     */
+    public interface OnDaySelectedListener {
+
+        /**
+         * @param view  the month view that was tapped
+         * @param year  the Persian year
+         * @param month the Persian month (zero-based)
+         * @param day   the day of month
+         */
+        void onDaySelected(PersianMonthView view, int year, int month, int day);
+    }
+
+}
@@ -1,13 +1,17 @@
 package android.app.view;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Typeface;
+import android.graphics.drawable.ColorDrawable;
+import android.support.annotation.ColorInt;
 import android.util.AttributeSet;
 import android.view.View;
 import android.widget.NumberPicker;
 import android.widget.TextView;
 
-import android.app.PersianDatePickerDialog;
+import java.lang.reflect.Field;
 
 /**
  * Created by aliabdolahi on 1/23/17.
@@ -15,7 +19,15 @@ import android.app.PersianDatePickerDialog;
 
 public class PersianNumberPicker extends NumberPicker {
 
+    // NumberPicker defaults for the selection dividers, in dp
+    private static final int DEFAULT_SELECTION_DIVIDERS_DISTANCE = 48;
+    private static final int DEFAULT_SELECTION_DIVIDER_HEIGHT = 2;
+
     private Typeface typeFace;
+    // this picker's own divider, recoloured in place; a drawable shared between views would
+    // also share its bounds and callback
+    private ColorDrawable dividerDrawable;
+    private Paint dividerPaint;
 
     public PersianNumberPicker(Context context) {
         super(context);
@@ -48,15 +60,119 @@ public class PersianNumberPicker extends NumberPicker {
         updateView(child);
     }
 
+    /**
+     * Sets the typeface of this picker only. It is applied once to the input child and to the
+     * paint the selector wheel is drawn with; see {@link PersianTypefaces} for loading fonts
+     * without re-reading them per picker.
+     */
     public void setTypeFace(Typeface typeFace) {
+        if (this.typeFace == typeFace) {
+            return;
+        }
         this.typeFace = typeFace;
+        for (int i = 0; i < getChildCount(); i++) {
+            updateView(getChildAt(i));
+        }
+        Field field = SelectorWheelPaintField.FIELD;
+        if (field != null) {
+            try {
+                Paint paint = (Paint) field.get(this);
+                if (paint != null) {
+                    paint.setTypeface(typeFace);
+                }
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
         super.invalidate();
     }
 
+    public Typeface getTypeFace() {
+        return typeFace;
+    }
+
+    /**
+     * Sets the colour of the selection dividers. The private {@code mSelectionDivider} field of
+     * {@link NumberPicker} is resolved once per process and each picker keeps one drawable,
+     * recoloured on later calls. When reflection is blocked the dividers are drawn over the
+     * default ones instead.
+     */
+    public void setSelectionDividerColor(@ColorInt int color) {
+        Field field = SelectionDividerField.FIELD;
+        if (field != null) {
+            try {
+                field.set(this, getDividerDrawable(color));
+                dividerPaint = null;
+                invalidate();
+                return;
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+        if (dividerPaint == null) {
+            dividerPaint = new Paint();
+        }
+        dividerPaint.setColor(color);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (dividerPaint != null) {
+            float density = getResources().getDisplayMetrics().density;
+            int distance = (int) (DEFAULT_SELECTION_DIVIDERS_DISTANCE * density + 0.5f);
+            int height = (int) (DEFAULT_SELECTION_DIVIDER_HEIGHT * density + 0.5f);
+            int topDividerTop = (getHeight() - distance) / 2 - height;
+            int bottomDividerTop = topDividerTop + height + distance;
+            canvas.drawRect(0, topDividerTop, getWidth(), topDividerTop + height, dividerPaint);
+            canvas.drawRect(0, bottomDividerTop, getWidth(), bottomDividerTop + height, dividerPaint);
+        }
+    }
+
+    private ColorDrawable getDividerDrawable(int color) {
+        if (dividerDrawable == null) {
+            dividerDrawable = new ColorDrawable(color);
+        } else {
+            dividerDrawable.setColor(color);
+        }
+        return dividerDrawable;
+    }
+
+    /**
+     * Lazily resolved handle to {@code NumberPicker.mSelectionDivider}, {@code null} when the
+     * field is missing or not accessible on this platform.
+     */
+    private static class SelectionDividerField {
+        static final Field FIELD = resolveField("mSelectionDivider");
+    }
+
+    /**
+     * Lazily resolved handle to {@code NumberPicker.mSelectorWheelPaint}, {@code null} when the
+     * field is missing or not accessible on this platform.
+     */
+    private static class SelectorWheelPaintField {
+        static final Field FIELD = resolveField("mSelectorWheelPaint");
+    }
+
+    private static Field resolveField(String name) {
+        try {
+            Field field = NumberPicker.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
     private void updateView(View view) {
         if (view instanceof TextView) {
-            if (PersianDatePickerDialog.typeFace != null)
-                ((TextView) view).setTypeface(PersianDatePickerDialog.typeFace);
+            if (typeFace != null)
+                ((TextView) view).setTypeface(typeFace);
         }
     }
 
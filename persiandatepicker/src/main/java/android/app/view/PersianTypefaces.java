@@ -0,0 +1,57 @@
+package android.app.view;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.support.annotation.FontRes;
+import android.support.v4.content.res.ResourcesCompat;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of the typefaces used by the pickers. Each font is read from the assets or
+ * resources once; later lookups return the same {@link Typeface} instance, which can then be
+ * handed to any number of pickers and dialogs.
+ */
+public class PersianTypefaces {
+
+    private static final Map<String, Typeface> assetTypefaces = new HashMap<>();
+    private static final SparseArray<Typeface> resourceTypefaces = new SparseArray<>();
+
+    private PersianTypefaces() {
+    }
+
+    /**
+     * @param path path of the font file inside the assets folder, e.g. {@code "Shabnam-Light-FD.ttf"}
+     * @return the cached typeface, loaded on the first call
+     */
+    public static Typeface fromAsset(Context context, String path) {
+        synchronized (assetTypefaces) {
+            Typeface typeface = assetTypefaces.get(path);
+            if (typeface == null) {
+                typeface = Typeface.createFromAsset(context.getApplicationContext().getAssets(), path);
+                assetTypefaces.put(path, typeface);
+            }
+            return typeface;
+        }
+    }
+
+    /**
+     * @param fontRes a font resource, e.g. {@code R.font.shabnam}
+     * @return the cached typeface, loaded on the first call; {@code null} if the font could not be loaded
+     */
+    public static Typeface fromResource(Context context, @FontRes int fontRes) {
+        synchronized (resourceTypefaces) {
+            Typeface typeface = resourceTypefaces.get(fontRes);
+            if (typeface == null) {
+                typeface = ResourcesCompat.getFont(context.getApplicationContext(), fontRes);
+                if (typeface != null) {
+                    resourceTypefaces.put(fontRes, typeface);
+                }
+            }
+            return typeface;
+        }
+    }
+
+}
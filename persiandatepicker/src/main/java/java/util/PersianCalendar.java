@@ -61,8 +61,13 @@ package java.util;
 		Started the project.
 */
 
+import java.util.persian.HijriCalendarUtils;
 import java.util.persian.PersianCalendarConstants;
 import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianDateCache;
+import java.util.persian.PersianDates;
+import java.util.persian.PersianHelper;
+import java.util.persian.PersianMetrics;
 
 /**
  * <strong> Persian(Shamsi) calendar </strong>
@@ -158,9 +163,14 @@ public class PersianCalendar extends GregorianCalendar {
     private static final long JULIAN_EPOCH_MILLIS = -210866803200000L;
     private static final long ONE_DAY_MILLIS = 24L * 60L * 60L * 1000L;
 
-    protected int persianYear;
-    protected int persianMonth;
-    protected int persianDay;
+    // persianYear, persianMonth and persianDay are computed lazily, once per
+    // local Julian day, whatever changed the time, time zone or fields; they are
+    // private since they are stale until read through the getters
+    private int persianYear;
+    private int persianMonth;
+    private int persianDay;
+    private transient long persianJulianDay = Long.MIN_VALUE;
+    private transient int persianEngine;
 
     // use to seperate PersianDate's field and also Parse the DateString based
     // on this delimiter
@@ -233,13 +243,16 @@ public class PersianCalendar extends GregorianCalendar {
     }
 
     /**
-     Determines if the specified year is a leap year in the Persian calendar.
+     Determines if the specified year is a leap year in the Persian calendar,
+     by the rule selected with {@link PersianCalendarUtils#setEngine(int)}.
 
      @param year the "Persian" year.
      @return <code>true</code> if <code>year</code> is a leap year, <code>false</code> otherwise.
      */
     public static boolean isLeapYear(long year)
     {
+        if (PersianCalendarUtils.getEngine() != PersianCalendarUtils.ENGINE_ARITHMETIC)
+            return PersianCalendarUtils.isPersianLeapYear((int) year);
         long a = year - 474L;
         long b = mod(a, 2820L) + 474L;
         return mod((b + 38D) * 682D, 2816D) < 682L;
@@ -254,6 +267,8 @@ public class PersianCalendar extends GregorianCalendar {
      */
     public static long pj(long y, int m, int d)
     {
+        if (PersianCalendarUtils.getEngine() != PersianCalendarUtils.ENGINE_ARITHMETIC)
+            return PersianCalendarUtils.persianToJulian(y, m, d);
         long a = y - 474L;
         long b = mod(a, 2820D) + 474L;
         return (EPOCH - 1L) + 1029983L * div(a, 2820D) + 365L * (b - 1L) + div(682L * b - 110L, 2816D) + (long)(m > 6? 30 * m + 6: 31 * m) + (long)d;
@@ -267,6 +282,8 @@ public class PersianCalendar extends GregorianCalendar {
      */
     public static long jp(long j)
     {
+        if (PersianCalendarUtils.getEngine() != PersianCalendarUtils.ENGINE_ARITHMETIC)
+            return PersianCalendarUtils.julianToPersian(j);
         long a = j - pj(475L, 0, 1);
         long b = div(a, 1029983D);
         long c = mod(a, 1029983D);
@@ -278,6 +295,25 @@ public class PersianCalendar extends GregorianCalendar {
         return (year << 16) | (month << 8) | day;
     }
 
+    /**
+     Appends the long form of the specified Persian date, as returned by {@link #getPersianLongDate()},
+     to <code>out</code> without creating a calendar or intermediate strings.
+
+     @param out the builder to append to.
+     @param persianYear the Persian year.
+     @param persianMonth the Persian month (zero-based).
+     @param persianDay the Persian day of month.
+     @return <code>out</code>.
+     */
+    public static StringBuilder appendPersianLongDate(StringBuilder out, int persianYear, int persianMonth, int persianDay)
+    {
+        long julianDay = pj(persianYear > 0? persianYear: persianYear + 1, persianMonth, persianDay);
+        out.append(PersianCalendarConstants.persianWeekDays[PersianCalendarUtils.persianWeekDay(julianDay - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY)]).append("  ");
+        PersianHelper.appendNumber(out, persianDay, 2, false).append("  ");
+        out.append(PersianCalendarConstants.persianMonthNames[persianMonth]).append("  ");
+        return PersianHelper.appendNumber(out, persianYear, 1, false);
+    }
+
     /**
      Get the Julian day corresponding to the date of this calendar.
      @since 2.0
@@ -321,10 +357,11 @@ public class PersianCalendar extends GregorianCalendar {
 
      */
     public void setPersianDate(int persianYear, int persianMonth, int persianDay) {
-        this.persianYear = persianYear;
-        this.persianMonth = persianMonth;
-        this.persianDay = persianDay;
+        long start = PersianMetrics.start();
         setJulianDay(pj(persianYear > 0? persianYear: persianYear + 1, persianMonth, persianDay));
+        // normalize the given fields on the next read, even on the same day
+        persianJulianDay = Long.MIN_VALUE;
+        PersianMetrics.end(PersianMetrics.SET_DATE, start);
     }
 
     /**
@@ -332,29 +369,100 @@ public class PersianCalendar extends GregorianCalendar {
      * fields(persianYear, persianMonth, persianDay)
      */
     protected void calculatePersianDate() {
+        long start = PersianMetrics.start();
+        computePersianDate();
+        PersianMetrics.end(PersianMetrics.CONVERSION, start);
+    }
+
+    /**
+     * Recomputes the Persian fields if the local date moved since they were
+     * last computed.
+     */
+    private void ensurePersianFields() {
+        if (getJulianDay() != persianJulianDay || PersianCalendarUtils.getEngine() != persianEngine) {
+            calculatePersianDate();
+        }
+    }
+
+    private void computePersianDate() {
         long julianDay = getJulianDay();
+        persianJulianDay = julianDay;
+        persianEngine = PersianCalendarUtils.getEngine();
+        if (PersianDateCache.getShared() != null) {
+            int date = PersianCalendarUtils.epochDayToPackedDate(julianDay - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+            persianYear = PersianCalendarUtils.packedYear(date);
+            persianMonth = PersianCalendarUtils.packedMonth(date);
+            persianDay = PersianCalendarUtils.packedDay(date);
+            return;
+        }
         long r = jp(julianDay);
         persianYear = (int) y(r);
         persianMonth = m(r);
         persianDay = d(r);
     }
 
+    /**
+     * Like the getters of {@link Calendar}, the Persian getters may write: if the time, the time
+     * zone or the engine changed the local date since the last read, they recompute and store the
+     * Persian fields, once for all three. A calendar is therefore not safe to read from several
+     * threads either.
+     *
+     * @return The Persian year.
+     */
     public int getPersianYear() {
+        ensurePersianFields();
         return this.persianYear;
     }
 
     /**
      *
      * @return The Persian month (zero-based).
+     * @see #getPersianYear()
      */
     public int getPersianMonth() {
+        ensurePersianFields();
         return this.persianMonth;
     }
 
+    /**
+     * @return The Persian day of the month.
+     * @see #getPersianYear()
+     */
     public int getPersianDay() {
+        ensurePersianFields();
         return this.persianDay;
     }
 
+    /**
+     * Converts the date once for the year, month and day, unlike calling {@link #getHijriYear()},
+     * {@link #getHijriMonth()} and {@link #getHijriDay()} in turn.
+     *
+     * @return the lunar Hijri date of this calendar, {@link PersianCalendarUtils#packDate packed}
+     * @see HijriCalendarUtils
+     */
+    public int getHijriDate() {
+        return HijriCalendarUtils.epochDayToPackedDate(getJulianDay() - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+    }
+
+    /**
+     * @return the lunar Hijri year of the date of this calendar
+     * @see #getHijriDate()
+     */
+    public int getHijriYear() {
+        return PersianCalendarUtils.packedYear(getHijriDate());
+    }
+
+    /**
+     * @return the lunar Hijri month (zero-based) of the date of this calendar
+     */
+    public int getHijriMonth() {
+        return PersianCalendarUtils.packedMonth(getHijriDate());
+    }
+
+    public int getHijriDay() {
+        return PersianCalendarUtils.packedDay(getHijriDate());
+    }
+
     public long getTimeInHereMillis() {
         return getTimeInMillis() + (long)getTimeZone().getRawOffset();
     }
@@ -367,11 +475,11 @@ public class PersianCalendar extends GregorianCalendar {
      * @return boolean
      */
     public boolean isPersianLeapYear() {
-        return PersianCalendarUtils.isPersianLeapYear(this.persianYear);
+        return PersianCalendarUtils.isPersianLeapYear(getPersianYear());
     }
 
     public String getPersianMonthName() {
-        return PersianCalendarConstants.persianMonthNames[this.persianMonth];
+        return PersianCalendarConstants.persianMonthNames[getPersianMonth()];
     }
 
     /**
@@ -403,11 +511,17 @@ public class PersianCalendar extends GregorianCalendar {
      * @return String of Persian Date ex: شنبه 01 خرداد 1361
      */
     public String getPersianLongDate() {
-        return getPersianWeekDayName() + "  " + formatToMilitary(this.persianDay) + "  " + getPersianMonthName() + "  " + this.persianYear;
+        long start = PersianMetrics.start();
+        String date = getPersianWeekDayName() + "  " + formatToMilitary(getPersianDay()) + "  " + getPersianMonthName() + "  " + getPersianYear();
+        PersianMetrics.end(PersianMetrics.FORMAT, start);
+        return date;
     }
 
     public String getPersianLongDateAndTime() {
-        return getPersianLongDate() + " \u0633\u0627\u0639\u062A " + formatToMilitary(get(HOUR_OF_DAY)) + ":" + formatToMilitary(get(MINUTE)) + ":" + formatToMilitary(get(SECOND));
+        long start = PersianMetrics.start();
+        String date = appendPersianLongDateAndTime(new StringBuilder(40)).toString();
+        PersianMetrics.end(PersianMetrics.FORMAT, start);
+        return date;
     }
 
     /**
@@ -416,13 +530,54 @@ public class PersianCalendar extends GregorianCalendar {
      *         'YYYY[delimiter]mm[delimiter]dd' default delimiter is '/'
      */
     public String getPersianShortDate() {
+        long start = PersianMetrics.start();
         // calculatePersianDate();
-        return "" + formatToMilitary(this.persianYear) + delimiter + formatToMilitary(getPersianMonth() + 1) + delimiter + formatToMilitary(this.persianDay);
+        String date = "" + formatToMilitary(getPersianYear()) + delimiter + formatToMilitary(getPersianMonth() + 1) + delimiter + formatToMilitary(getPersianDay());
+        PersianMetrics.end(PersianMetrics.FORMAT, start);
+        return date;
     }
 
     public String getPersianShortDateTime() {
-        return "" + formatToMilitary(this.persianYear) + delimiter + formatToMilitary(getPersianMonth() + 1) + delimiter + formatToMilitary(this.persianDay) + " " + formatToMilitary(this.get(HOUR_OF_DAY)) + ":" + formatToMilitary(get(MINUTE))
-                + ":" + formatToMilitary(get(SECOND));
+        long start = PersianMetrics.start();
+        String date = appendPersianShortDateTime(new StringBuilder(19)).toString();
+        PersianMetrics.end(PersianMetrics.FORMAT, start);
+        return date;
+    }
+
+    /**
+     * Appends the date and time like {@link #getPersianLongDateAndTime()}, to a builder that may be reused.
+     * The date and the time are both taken from the local time, daylight saving included.
+     *
+     * @return <code>out</code>
+     */
+    public StringBuilder appendPersianLongDateAndTime(StringBuilder out) {
+        long localMillis = getLocalMillis();
+        long epochDay = PersianCalendarUtils.floorDiv(localMillis, ONE_DAY_MILLIS);
+        int date = PersianDates.fromEpochDay(epochDay);
+        appendPersianLongDate(out, PersianDates.year(date), PersianDates.month(date), PersianDates.day(date)).append(" \u0633\u0627\u0639\u062A ");
+        return PersianDates.appendTime(out, (int) (localMillis - epochDay * ONE_DAY_MILLIS), false);
+    }
+
+    /**
+     * Appends the date and time like {@link #getPersianShortDateTime()}, to a builder that may be reused.
+     * The date and the time are both taken from the local time, daylight saving included.
+     *
+     * @return <code>out</code>
+     */
+    public StringBuilder appendPersianShortDateTime(StringBuilder out) {
+        long localMillis = getLocalMillis();
+        long epochDay = PersianCalendarUtils.floorDiv(localMillis, ONE_DAY_MILLIS);
+        int date = PersianDates.fromEpochDay(epochDay);
+        PersianHelper.appendNumber(out, PersianDates.year(date), 2, false).append(delimiter);
+        PersianHelper.appendNumber(out, PersianDates.month(date) + 1, 2, false).append(delimiter);
+        PersianHelper.appendNumber(out, PersianDates.day(date), 2, false).append(' ');
+        return PersianDates.appendTime(out, (int) (localMillis - epochDay * ONE_DAY_MILLIS), false);
+    }
+
+    // the local time, from a single offset lookup, for the date and the time of day alike
+    private long getLocalMillis() {
+        long millis = getTimeInMillis();
+        return millis + getTimeZone().getOffset(millis);
     }
 
     private String formatToMilitary(int i) {
@@ -475,32 +630,14 @@ public class PersianCalendar extends GregorianCalendar {
         }
 
         if (field == YEAR) {
-            setPersianDate(this.persianYear + amount, getPersianMonth(), this.persianDay);
+            setPersianDate(getPersianYear() + amount, getPersianMonth(), getPersianDay());
             return;
         } else if (field == MONTH) {
-            setPersianDate(this.persianYear + ((getPersianMonth() + amount) / 12), (getPersianMonth() + amount) % 12, this.persianDay);
+            setPersianDate(getPersianYear() + ((getPersianMonth() + amount) / 12), (getPersianMonth() + amount) % 12, getPersianDay());
             return;
         }
         add(field, amount);
-        calculatePersianDate();
-    }
-
-    @Override
-    public void set(int field, int value) {
-        super.set(field, value);
-        calculatePersianDate();
     }
 
-    @Override
-    public void setTimeInMillis(long millis) {
-        super.setTimeInMillis(millis);
-        calculatePersianDate();
-    }
-
-    @Override
-    public void setTimeZone(TimeZone zone) {
-        super.setTimeZone(zone);
-        calculatePersianDate();
-    }
 
 }
@@ -0,0 +1,167 @@
+package java.util.persian;
+
+/**
+ * Converts between Julian days and the lunar Hijri (Qamari) calendar, using
+ * the same Julian day model as {@link PersianCalendarUtils}, so a Julian day or
+ * epoch day can be shown in both calendars.
+ *
+ * <p>
+ * Years {@value HijriTable#FIRST_YEAR} to {@value HijriTable#LAST_YEAR}
+ * (1882 to 2174 A.D.) follow the Umm al-Qura tables; the start of every month
+ * is precomputed once, so a conversion is a binary search over that array and
+ * a subtraction. Dates outside the table fall back to the arithmetical
+ * (tabular) Islamic calendar.
+ *
+ * <p>
+ * Months are zero-based, as in {@link PersianCalendarUtils}. Dates are packed
+ * the same ways too: into a long as by {@link #julianToHijri(long)} and into a
+ * sortable int as by {@link PersianCalendarUtils#packDate(int, int, int)}.
+ */
+public class HijriCalendarUtils {
+
+	/**
+	 * The JDN of 1 Muharram 1 in the arithmetical calendar; Equivalent to July
+	 * 16, 622 A.D.
+	 */
+	public static final long HIJRI_EPOCH = 1948440;
+
+	private static final int MONTHS = (HijriTable.LAST_YEAR - HijriTable.FIRST_YEAR + 1) * 12;
+
+	// epoch day of the first day of every month in the table, plus the day
+	// after the table
+	private static class MonthStarts {
+		static final int[] epochDays = new int[MONTHS + 1];
+
+		static {
+			int epochDay = HijriTable.FIRST_EPOCH_DAY;
+			for (int i = 0; i < MONTHS; i++) {
+				epochDays[i] = epochDay;
+				epochDay += (HijriTable.LONG_MONTHS[i / 12] & (1 << (i % 12))) != 0 ? 30 : 29;
+			}
+			epochDays[MONTHS] = epochDay;
+		}
+	}
+
+	/**
+	 * @return whether the year is covered by the Umm al-Qura table rather than
+	 *         the arithmetical rule
+	 */
+	public static boolean isTableYear(int year) {
+		return year >= HijriTable.FIRST_YEAR && year <= HijriTable.LAST_YEAR;
+	}
+
+	/**
+	 * Converts a Hijri date to the Julian Day Number.
+	 *
+	 * @param year
+	 *            int hijri year
+	 * @param month
+	 *            int hijri month (zero-based)
+	 * @param day
+	 *            int hijri day
+	 * @return long
+	 */
+	public static long hijriToJulian(int year, int month, int day) {
+		if (isTableYear(year))
+			return MonthStarts.epochDays[(year - HijriTable.FIRST_YEAR) * 12 + month] + day - 1
+					+ PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY;
+		return arithmeticToJulian(year, month, day);
+	}
+
+	/**
+	 * Converts a Julian Day Number to the Hijri date, packed into a long as
+	 * {@code year << 16 | month << 8 | day} like
+	 * {@link PersianCalendarUtils#julianToPersian(long)}.
+	 *
+	 * @param julianDate
+	 * @return long
+	 */
+	public static long julianToHijri(long julianDate) {
+		long epochDay = julianDate - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY;
+		int[] starts = MonthStarts.epochDays;
+		if (epochDay >= starts[0] && epochDay < starts[MONTHS]) {
+			int index = monthIndex(starts, (int) epochDay);
+			long year = HijriTable.FIRST_YEAR + index / 12;
+			return (year << 16) | ((index % 12) << 8) | (epochDay - starts[index] + 1);
+		}
+		return julianToArithmetic(julianDate);
+	}
+
+	/**
+	 * @param month
+	 *            int hijri month (zero-based)
+	 * @return days since 1970-01-01
+	 */
+	public static int hijriToEpochDay(int year, int month, int day) {
+		return (int) (hijriToJulian(year, month, day) - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @return the Hijri date {@link PersianCalendarUtils#packDate packed} into
+	 *         an int
+	 */
+	public static int epochDayToPackedDate(long epochDay) {
+		long date = julianToHijri(epochDay + PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+		return PersianCalendarUtils.packDate((int) (date >> 16), (int) ((date >> 8) & 0xFF), (int) (date & 0xFF));
+	}
+
+	/**
+	 * Converts epoch days to {@link PersianCalendarUtils#packDate packed} Hijri
+	 * dates. Consecutive days of the same month, as in month grids and date
+	 * ranges, cost one addition each.
+	 *
+	 * @param epochDays
+	 *            days since 1970-01-01
+	 * @param out
+	 *            receives the packed dates, at least as long as epochDays
+	 * @return out
+	 */
+	public static int[] epochDaysToPackedDates(int[] epochDays, int[] out) {
+		return PersianCalendarUtils.epochDaysToPackedDates(epochDays, out, true);
+	}
+
+	/**
+	 * Number of days in the given month
+	 *
+	 * @param month
+	 *            int hijri month (zero-based)
+	 * @return int
+	 */
+	public static int hijriMonthLength(int year, int month) {
+		if (isTableYear(year))
+			return (HijriTable.LONG_MONTHS[year - HijriTable.FIRST_YEAR] & (1 << month)) != 0 ? 30 : 29;
+		if (month == 11)
+			return (int) (arithmeticToJulian(year + 1, 0, 1) - arithmeticToJulian(year, 11, 1));
+		return month % 2 == 0 ? 30 : 29;
+	}
+
+	private static int monthIndex(int[] starts, int epochDay) {
+		int low = 0;
+		int high = MONTHS - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (starts[mid] <= epochDay)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	private static long arithmeticToJulian(long year, int month, int day) {
+		return day + (59L * month + 1L) / 2L + (year - 1L) * 354L
+				+ (long) Math.floor((3D + 11D * year) / 30D) + HIJRI_EPOCH - 1L;
+	}
+
+	private static long julianToArithmetic(long julianDate) {
+		long year = (long) Math.floor((30D * (julianDate - HIJRI_EPOCH) + 10646D) / 10631D);
+		int month = (int) Math.min(11L, (long) Math.ceil((julianDate - 29L - arithmeticToJulian(year, 0, 1)) / 29.5D));
+		if (month < 0)
+			month = 0;
+		int day = (int) (julianDate - arithmeticToJulian(year, month, 1) + 1L);
+		return (year << 16) | (month << 8) | day;
+	}
+
+}
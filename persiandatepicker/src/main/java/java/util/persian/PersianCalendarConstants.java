@@ -38,6 +38,11 @@ public class PersianCalendarConstants {
 	 */
 	public static final long PERSIAN_EPOCH = 1948321;
 
+	/**
+	 * The JDN of 1970-01-01, i.e. of epoch day 0.
+	 */
+	public static final long EPOCH_DAY_JULIAN_DAY = 2440588;
+
 	public static final String[] persianMonthNames = { "\u0641\u0631\u0648\u0631\u062f\u06cc\u0646", // Farvardin
 			"\u0627\u0631\u062f\u06cc\u0628\u0647\u0634\u062a", // Ordibehesht
 			"\u062e\u0631\u062f\u0627\u062f", // Khordad
@@ -52,6 +57,20 @@ public class PersianCalendarConstants {
 			"\u0627\u0633\u0641\u0646\u062f" // Esfand
 	};
 
+	public static final String[] hijriMonthNames = { "\u0645\u062d\u0631\u0645", // Muharram
+			"\u0635\u0641\u0631", // Safar
+			"\u0631\u0628\u06cc\u0639\u200c\u0627\u0644\u0627\u0648\u0644", // Rabi al-Awwal
+			"\u0631\u0628\u06cc\u0639\u200c\u0627\u0644\u062b\u0627\u0646\u06cc", // Rabi al-Thani
+			"\u062c\u0645\u0627\u062f\u06cc\u200c\u0627\u0644\u0627\u0648\u0644", // Jumada al-Awwal
+			"\u062c\u0645\u0627\u062f\u06cc\u200c\u0627\u0644\u062b\u0627\u0646\u06cc", // Jumada al-Thani
+			"\u0631\u062c\u0628", // Rajab
+			"\u0634\u0639\u0628\u0627\u0646", // Shaban
+			"\u0631\u0645\u0636\u0627\u0646", // Ramadan
+			"\u0634\u0648\u0627\u0644", // Shawwal
+			"\u0630\u06cc\u200c\u0627\u0644\u0642\u0639\u062f\u0647", // Dhu al-Qadah
+			"\u0630\u06cc\u200c\u0627\u0644\u062d\u062c\u0647" // Dhu al-Hijjah
+	};
+
 	public static final String[] persianWeekDays = { "\u0634\u0646\u0628\u0647", // Shanbeh
 			"\u06cc\u06a9\u200c\u0634\u0646\u0628\u0647", // Yekshanbeh
 			"\u062f\u0648\u0634\u0646\u0628\u0647", // Doshanbeh
@@ -32,6 +32,61 @@ package java.util.persian;
  */
 public class PersianCalendarUtils {
 
+	/**
+	 * The 2820 year arithmetic leap year rule, the default.
+	 */
+	public static final int ENGINE_ARITHMETIC = 0;
+
+	/**
+	 * The rule of the official Iranian calendar: a year starts on the day of
+	 * the March equinox if the equinox is before true noon at Tehran, and on
+	 * the next day otherwise. Years {@value PersianNowruzTable#FIRST_YEAR} to
+	 * {@value PersianNowruzTable#LAST_YEAR} are read from a precomputed table
+	 * and others fall back to the arithmetic rule.
+	 */
+	public static final int ENGINE_ASTRONOMICAL = 1;
+
+	private static volatile int engine = ENGINE_ARITHMETIC;
+
+	// Julian day of 1 Farvardin of every year in PersianNowruzTable
+	private static class NowruzJulianDays {
+		static final long[] julianDays = new long[PersianNowruzTable.EPOCH_DAYS.length];
+
+		static {
+			for (int i = 0; i < julianDays.length; i++)
+				julianDays[i] = PersianNowruzTable.EPOCH_DAYS[i] + PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY;
+		}
+	}
+
+	/**
+	 * Selects the leap year rule used by every conversion of this class and of
+	 * {@link java.util.PersianCalendar}. Calendars pick up the new rule on
+	 * their next read of a Persian field.
+	 * 
+	 * @param engine
+	 *            {@link #ENGINE_ARITHMETIC} or {@link #ENGINE_ASTRONOMICAL}
+	 */
+	public static void setEngine(int engine) {
+		if (engine != ENGINE_ARITHMETIC && engine != ENGINE_ASTRONOMICAL)
+			throw new IllegalArgumentException("engine is not valid");
+		if (PersianCalendarUtils.engine != engine) {
+			PersianCalendarUtils.engine = engine;
+			PersianMonthMatrix.clearCache();
+			PersianToday.clearAll();
+			PersianDateCache cache = PersianDateCache.getShared();
+			if (cache != null)
+				cache.clear();
+		}
+	}
+
+	public static int getEngine() {
+		return engine;
+	}
+
+	private static boolean isTableYear(long year) {
+		return engine == ENGINE_ASTRONOMICAL && year >= PersianNowruzTable.FIRST_YEAR && year <= PersianNowruzTable.LAST_YEAR;
+	}
+
 	/**
 	 * Converts a provided Persian (Shamsi) date to the Julian Day Number (i.e.
 	 * the number of days since January 1 in the year 4713 BC). Since the
@@ -50,6 +105,8 @@ public class PersianCalendarUtils {
 	 * @return long
 	 */
 	public static long persianToJulian(long year, int month, int day) {
+		if (isTableYear(year))
+			return NowruzJulianDays.julianDays[(int) (year - PersianNowruzTable.FIRST_YEAR)] + (month < 7 ? 31 * month : 30 * month + 6) + day - 1;
 		return 365L * ((ceil(year - 474L, 2820D) + 474L) - 1L) + ((long) Math.floor((682L * (ceil(year - 474L, 2820D) + 474L) - 110L) / 2816D)) + (PersianCalendarConstants.PERSIAN_EPOCH - 1L) + 1029983L
 				* ((long) Math.floor((year - 474L) / 2820D)) + (month < 7 ? 31 * month : 30 * month + 6) + day;
 	}
@@ -60,6 +117,10 @@ public class PersianCalendarUtils {
 	 * @return boolean
 	 */
 	public static boolean isPersianLeapYear(int persianYear) {
+		if (isTableYear(persianYear)) {
+			int index = persianYear - PersianNowruzTable.FIRST_YEAR;
+			return NowruzJulianDays.julianDays[index + 1] - NowruzJulianDays.julianDays[index] == 366;
+		}
 		return PersianCalendarUtils.ceil((38D + (PersianCalendarUtils.ceil(persianYear - 474L, 2820L) + 474L)) * 682D, 2816D) < 682L;
 	}
 
@@ -78,12 +139,178 @@ public class PersianCalendarUtils {
 		long cyear = ceil(persianEpochInJulian, 1029983D);
 		long ycycle = cyear != 1029982L ? ((long) Math.floor((2816D * (double) cyear + 1031337D) / 1028522D)) : 2820L;
 		long year = 474L + 2820L * ((long) Math.floor(persianEpochInJulian / 1029983D)) + ycycle;
+		if (isTableYear(year) || isTableYear(year - 1) || isTableYear(year + 1)) {
+			// the rules differ by a day at most, so the year is off by one at most
+			if (julianDate < persianToJulian(year, 0, 1))
+				year--;
+			else if (julianDate >= persianToJulian(year + 1, 0, 1))
+				year++;
+		}
 		long aux = (1L + julianDate) - persianToJulian(year, 0, 1);
 		int month = (int) (aux > 186L ? Math.ceil((double) (aux - 6L) / 30D) - 1 : Math.ceil((double) aux / 31D) - 1);
 		int day = (int) (julianDate - (persianToJulian(year, month, 1) - 1L));
 		return (year << 16) | (month << 8) | day;
 	}
 
+	/**
+	 * Converts a Persian date to an epoch day, the number of days since
+	 * 1970-01-01.
+	 * 
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @param day
+	 *            int persian day
+	 * @return int
+	 */
+	public static int persianToEpochDay(int year, int month, int day) {
+		return (int) (persianToJulian(year, month, day) - PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+	}
+
+	/**
+	 * Number of days in the given month
+	 * 
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return int
+	 */
+	public static int persianMonthLength(int year, int month) {
+		if (month < 6)
+			return 31;
+		if (month < 11)
+			return 30;
+		return isPersianLeapYear(year) ? 30 : 29;
+	}
+
+	/**
+	 * Persian week day of an epoch day, Saturday being 0 and Friday 6, the
+	 * order of {@link PersianCalendarConstants#persianWeekDays}.
+	 * 
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @return int
+	 */
+	public static int persianWeekDay(long epochDay) {
+		// 1970-01-01 was a Thursday
+		return (int) ceil(epochDay + 5, 7);
+	}
+
+	/**
+	 * Packs a Persian date into an int as {@code year << 9 | month << 5 | day}.
+	 * Unlike the long returned by {@link #julianToPersian(long)}, packed ints
+	 * of non-negative years compare in date order, so they can be sorted,
+	 * binary searched and used as keys.
+	 * 
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @param day
+	 *            int persian day
+	 * @return int
+	 */
+	public static int packDate(int year, int month, int day) {
+		return (year << 9) | (month << 5) | day;
+	}
+
+	public static int packedYear(int packedDate) {
+		return packedDate >> 9;
+	}
+
+	/**
+	 * @return the Persian month (zero-based) of a {@link #packDate packed} date
+	 */
+	public static int packedMonth(int packedDate) {
+		return (packedDate >> 5) & 0xF;
+	}
+
+	public static int packedDay(int packedDate) {
+		return packedDate & 0x1F;
+	}
+
+	/**
+	 * @param dayOfYear
+	 *            zero-based day of the year, 0 being 1 Farvardin
+	 * @return the {@link #packDate packed} date
+	 */
+	public static int dayOfYearToPackedDate(int year, int dayOfYear) {
+		// six months of 31 days, then months of 30
+		int month = dayOfYear < 186 ? dayOfYear / 31 : 6 + (dayOfYear - 186) / 30;
+		int day = dayOfYear - (month < 6 ? month * 31 : 186 + (month - 6) * 30) + 1;
+		return packDate(year, month, day);
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @return the {@link #packDate packed} Persian date of the epoch day
+	 */
+	public static int epochDayToPackedDate(long epochDay) {
+		PersianDateCache cache = PersianDateCache.getShared();
+		if (cache != null && epochDay == (int) epochDay)
+			return cache.get((int) epochDay);
+		return computePackedDate(epochDay);
+	}
+
+	static int computePackedDate(long epochDay) {
+		long date = julianToPersian(epochDay + PersianCalendarConstants.EPOCH_DAY_JULIAN_DAY);
+		return packDate((int) (date >> 16), (int) ((date >> 8) & 0xFF), (int) (date & 0xFF));
+	}
+
+	/**
+	 * Converts epoch days to {@link #packDate packed} Persian dates.
+	 * Consecutive days of the same month, as in month grids and date ranges,
+	 * cost one addition each.
+	 * 
+	 * @param epochDays
+	 *            days since 1970-01-01
+	 * @param out
+	 *            receives the packed dates, at least as long as epochDays
+	 * @return out
+	 */
+	public static int[] epochDaysToPackedDates(int[] epochDays, int[] out) {
+		return epochDaysToPackedDates(epochDays, out, false);
+	}
+
+	/**
+	 * The month cursor of {@link #epochDaysToPackedDates(int[], int[])}, for
+	 * Persian or, for {@link HijriCalendarUtils}, Hijri dates: a full
+	 * conversion only when a day falls outside the month of the previous one.
+	 */
+	static int[] epochDaysToPackedDates(int[] epochDays, int[] out, boolean hijri) {
+		int monthStart = 1;
+		int monthEnd = 0;
+		int firstOfMonth = 0;
+		for (int i = 0; i < epochDays.length; i++) {
+			int epochDay = epochDays[i];
+			if (epochDay < monthStart || epochDay >= monthEnd) {
+				firstOfMonth = hijri ? HijriCalendarUtils.epochDayToPackedDate(epochDay) : epochDayToPackedDate(epochDay);
+				int year = packedYear(firstOfMonth);
+				int month = packedMonth(firstOfMonth);
+				int day = packedDay(firstOfMonth);
+				monthStart = epochDay - day + 1;
+				monthEnd = monthStart + (hijri ? HijriCalendarUtils.hijriMonthLength(year, month) : persianMonthLength(year, month));
+				firstOfMonth -= day - 1;
+			}
+			out[i] = firstOfMonth + epochDay - monthStart;
+		}
+		return out;
+	}
+
+	/**
+	 * Division rounding towards negative infinity, so that instants before
+	 * 1970 fall on the right epoch day.
+	 * 
+	 * @return the largest long not greater than a / b
+	 */
+	public static long floorDiv(long a, long b) {
+		long quotient = a / b;
+		return (a % b != 0 && (a ^ b) < 0) ? quotient - 1 : quotient;
+	}
+
 	/**
 	 * Ceil function in original algorithm
 	 * 
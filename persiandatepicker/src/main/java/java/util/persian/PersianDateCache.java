@@ -0,0 +1,125 @@
+package java.util.persian;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free cache from epoch day to {@link PersianCalendarUtils#packDate packed}
+ * Persian date. It is direct mapped: an epoch day can only live in the slot
+ * selected by its low bits, and a newer day simply replaces the older one. As
+ * consecutive days map to consecutive slots, a cache of n slots holds the
+ * last n days in use without collisions, which is what skewed traffic around
+ * "today" needs.
+ *
+ * <p>
+ * Each slot is a single long holding the epoch day, the generation of the
+ * cache it was stored in and the date, so readers never see a torn entry and
+ * no locking is involved. {@link #clear()} starts a new generation, so a date
+ * computed under the previous leap year rule and stored after the clear is
+ * never returned.
+ *
+ * <pre>
+ *  {@code
+ *    PersianDateCache.enable(PersianDateCache.DEFAULT_SIZE);
+ *    // PersianCalendar and PersianCalendarUtils now consult the cache
+ *    PersianMetrics.setListener(metrics);
+ *    long hits = metrics.getCacheEvents(PersianMetrics.CACHE_DATES, PersianMetrics.CACHE_HIT);
+ *  }
+ * </pre>
+ *
+ * Hits and misses are only counted through {@link PersianMetrics}, so lookups
+ * share no counter unless metrics are on.
+ */
+public final class PersianDateCache {
+
+	public static final int DEFAULT_SIZE = 1024;
+
+	// entry layout: epoch day (32 bits), generation (8 bits), date (24 bits)
+	private static final int DATE_BITS = 24;
+	private static final int DATE_MASK = (1 << DATE_BITS) - 1;
+	private static final int GENERATION_MASK = 0xFF;
+
+	private static volatile PersianDateCache shared;
+
+	private final AtomicLongArray slots;
+	private final int mask;
+	private volatile int generation;
+
+	/**
+	 * @param size
+	 *            number of slots, rounded up to a power of two
+	 */
+	public PersianDateCache(int size) {
+		if (size < 1 || size > 1 << 30)
+			throw new IllegalArgumentException("size is not valid");
+		int capacity = Integer.highestOneBit(size);
+		if (capacity < size)
+			capacity <<= 1;
+		this.slots = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Installs a shared cache of the given size, consulted by
+	 * {@link java.util.PersianCalendar} and {@link PersianCalendarUtils}.
+	 */
+	public static void enable(int size) {
+		shared = new PersianDateCache(size);
+	}
+
+	/**
+	 * Removes the shared cache; conversions are computed every time again.
+	 */
+	public static void disable() {
+		shared = null;
+	}
+
+	/**
+	 * @return the shared cache, or {@code null} when disabled
+	 */
+	public static PersianDateCache getShared() {
+		return shared;
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @return the {@link PersianCalendarUtils#packDate packed} Persian date of
+	 *         the epoch day
+	 */
+	public int get(int epochDay) {
+		// read before computing, so that a date computed under the rule of an
+		// earlier generation is stored with that generation's tag
+		int tag = generation & GENERATION_MASK;
+		int slot = epochDay & mask;
+		long entry = slots.get(slot);
+		// packed dates are never 0, so an empty slot never matches
+		if (entry != 0 && (int) (entry >> 32) == epochDay && ((int) entry >>> DATE_BITS) == tag) {
+			PersianMetrics.cacheEvent(PersianMetrics.CACHE_DATES, PersianMetrics.CACHE_HIT);
+			return (int) entry & DATE_MASK;
+		}
+		PersianMetrics.cacheEvent(PersianMetrics.CACHE_DATES, PersianMetrics.CACHE_MISS);
+		int date = PersianCalendarUtils.computePackedDate(epochDay);
+		// years from 32768 on, or before 1, do not fit the entry
+		if (date <= 0 || date > DATE_MASK)
+			return date;
+		if (entry != 0)
+			PersianMetrics.cacheEvent(PersianMetrics.CACHE_DATES, PersianMetrics.CACHE_EVICTION);
+		slots.set(slot, ((long) epochDay << 32) | ((long) tag << DATE_BITS) | date);
+		return date;
+	}
+
+	/**
+	 * Empties the cache, e.g. after the leap year rule changed. Dates being
+	 * computed meanwhile are not kept.
+	 */
+	public void clear() {
+		generation++;
+		for (int i = 0; i < slots.length(); i++)
+			slots.set(i, 0);
+	}
+
+	public int size() {
+		return slots.length();
+	}
+
+}
@@ -0,0 +1,222 @@
+package java.util.persian;
+
+import java.nio.ByteBuffer;
+import java.util.PersianCalendar;
+import java.util.TimeZone;
+
+/**
+ * A compact binary form of Persian dates, for caches, files and IPC where a
+ * serialized {@link PersianCalendar} would cost hundreds of bytes of field and
+ * zone state.
+ *
+ * <ul>
+ * <li>a date is its {@link PersianCalendarUtils#packDate packed} int, 4 bytes;</li>
+ * <li>an instant is 8 bytes of epoch millis followed by the zone id;</li>
+ * <li>a sorted sequence of dates is a count, the first date and the
+ * differences between neighbours, each as a varint. Consecutive days take a
+ * single byte each.</li>
+ * </ul>
+ *
+ * Packed dates are stored as they are, not as days since an epoch, so decoding
+ * gives the same Persian dates whichever leap year engine is in use.
+ *
+ * <pre>
+ *  {@code
+ *    byte[] bytes = PersianDateCodec.encodeSortedDates(dates);
+ *    int[] decoded = PersianDateCodec.decodeSortedDates(bytes);
+ *  }
+ * </pre>
+ */
+public final class PersianDateCodec {
+
+	public static final int DATE_BYTES = 4;
+
+	private PersianDateCodec() {
+	}
+
+	// single dates
+
+	public static void putDate(ByteBuffer out, int date) {
+		out.putInt(date);
+	}
+
+	/**
+	 * @return the packed date
+	 * @throws IllegalArgumentException
+	 *             if the bytes do not hold a packed date
+	 */
+	public static int getDate(ByteBuffer in) {
+		return checkDate(in.getInt());
+	}
+
+	// instants
+
+	/**
+	 * @return number of bytes {@link #putDateTime} writes for the zone
+	 */
+	public static int dateTimeSize(TimeZone zone) {
+		String id = zone.getID();
+		return 8 + varintSize(id.length()) + id.length();
+	}
+
+	/**
+	 * Writes the instant and the id of the zone it is shown in.
+	 */
+	public static void putDateTime(ByteBuffer out, long millis, TimeZone zone) {
+		String id = zone.getID();
+		out.putLong(millis);
+		putVarint(out, id.length());
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (c > 0x7f)
+				throw new IllegalArgumentException("zone id is not ASCII: " + id);
+			out.put((byte) c);
+		}
+	}
+
+	public static void putDateTime(ByteBuffer out, PersianCalendar persianCalendar) {
+		putDateTime(out, persianCalendar.getTimeInMillis(), persianCalendar.getTimeZone());
+	}
+
+	/**
+	 * @return a new calendar set to the instant and zone written by
+	 *         {@link #putDateTime}
+	 */
+	public static PersianCalendar getDateTime(ByteBuffer in) {
+		long millis = in.getLong();
+		int length = getVarint(in);
+		if (length > in.remaining())
+			throw new IllegalArgumentException("zone id length is not valid: " + length);
+		char[] id = new char[length];
+		for (int i = 0; i < length; i++)
+			id[i] = (char) (in.get() & 0x7f);
+		PersianCalendar persianCalendar = new PersianCalendar();
+		persianCalendar.setTimeZone(TimeZone.getTimeZone(new String(id)));
+		persianCalendar.setTimeInMillis(millis);
+		return persianCalendar;
+	}
+
+	// sequences
+
+	/**
+	 * @return number of bytes {@link #putSortedDates} writes for the dates
+	 * @throws IllegalArgumentException
+	 *             if the dates are not in ascending order
+	 */
+	public static int sortedDatesSize(int[] dates, int offset, int count) {
+		int size = varintSize(count);
+		int previous = 0;
+		for (int i = offset; i < offset + count; i++) {
+			int date = dates[i];
+			if (date < previous)
+				throw new IllegalArgumentException("dates are not sorted at index " + i);
+			size += varintSize(date - previous);
+			previous = date;
+		}
+		return size;
+	}
+
+	/**
+	 * Writes dates in ascending order, duplicates allowed, as varint deltas.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the dates are not in ascending order
+	 */
+	public static void putSortedDates(ByteBuffer out, int[] dates, int offset, int count) {
+		putVarint(out, count);
+		int previous = 0;
+		for (int i = offset; i < offset + count; i++) {
+			int date = dates[i];
+			if (date < previous)
+				throw new IllegalArgumentException("dates are not sorted at index " + i);
+			putVarint(out, date - previous);
+			previous = date;
+		}
+	}
+
+	/**
+	 * @return the dates written by {@link #putSortedDates}
+	 */
+	public static int[] getSortedDates(ByteBuffer in) {
+		int count = getVarint(in);
+		// every date takes at least a byte
+		if (count > in.remaining())
+			throw new IllegalArgumentException("count is not valid: " + count);
+		int[] dates = new int[count];
+		int date = 0;
+		for (int i = 0; i < count; i++) {
+			date += getVarint(in);
+			dates[i] = checkDate(date);
+		}
+		return dates;
+	}
+
+	public static byte[] encodeSortedDates(int[] dates) {
+		ByteBuffer out = ByteBuffer.allocate(sortedDatesSize(dates, 0, dates.length));
+		putSortedDates(out, dates, 0, dates.length);
+		return out.array();
+	}
+
+	public static int[] decodeSortedDates(byte[] bytes) {
+		return getSortedDates(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * @return whether the dates can be written by {@link #putSortedDates}
+	 */
+	public static boolean isSorted(int[] dates, int offset, int count) {
+		for (int i = offset + 1; i < offset + count; i++)
+			if (dates[i] < dates[i - 1])
+				return false;
+		return count == 0 || dates[offset] >= 0;
+	}
+
+	// varints, 7 bits per byte, low bits first
+
+	public static int varintSize(int value) {
+		int size = 1;
+		while ((value >>>= 7) != 0)
+			size++;
+		return size;
+	}
+
+	public static void putVarint(ByteBuffer out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the varint is longer than five bytes
+	 */
+	public static int getVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("varint is too long");
+	}
+
+	/**
+	 * @return whether the int can be a {@link PersianCalendarUtils#packDate
+	 *         packed} date, i.e. has a positive year, a month of 0 to 11 and a
+	 *         day of 1 or more; what this codec accepts
+	 */
+	public static boolean isPackedDate(int date) {
+		return PersianCalendarUtils.packedYear(date) >= 1 && PersianCalendarUtils.packedMonth(date) <= 11
+				&& PersianCalendarUtils.packedDay(date) >= 1;
+	}
+
+	private static int checkDate(int date) {
+		if (!isPackedDate(date))
+			throw new IllegalArgumentException("not a packed date: " + date);
+		return date;
+	}
+
+}
@@ -0,0 +1,143 @@
+package java.util.persian;
+
+import java.util.PersianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Sort-preserving keys of Persian dates for database indexes and key-value
+ * stores, so that range scans by Persian month or year hit the index directly.
+ *
+ * <p>
+ * The formats are stable and may be persisted:
+ * <ul>
+ * <li>a date key is the {@link PersianCalendarUtils#packDate packed} date, an
+ * int {@code year << 9 | month << 5 | day} with a zero-based month;</li>
+ * <li>a date-time key is a long {@code dateKey << 27 | millisOfDay}, the local
+ * wall clock time in the zone it was taken in.</li>
+ * </ul>
+ * Keys of years 1 and later are positive and compare like the dates they hold,
+ * both as signed numbers and as big-endian bytes.
+ *
+ * <pre>
+ *  {@code
+ *    // SELECT * FROM notes WHERE date BETWEEN ? AND ?
+ *    int from = PersianDateKeys.monthStart(1403, 0);
+ *    int to = PersianDateKeys.monthEnd(1403, 0);
+ *  }
+ * </pre>
+ */
+public final class PersianDateKeys {
+
+	private static final int MILLIS_BITS = 27;
+	private static final long MILLIS_MASK = (1L << MILLIS_BITS) - 1;
+
+	private PersianDateKeys() {
+	}
+
+	// date keys
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 */
+	public static int dateKey(int year, int month, int day) {
+		return PersianCalendarUtils.packDate(year, month, day);
+	}
+
+	public static int dateKey(PersianCalendar persianCalendar) {
+		return dateKey(persianCalendar.getPersianYear(), persianCalendar.getPersianMonth(),
+				persianCalendar.getPersianDay());
+	}
+
+	/**
+	 * @return a new calendar set to the start of the date in the default time
+	 *         zone
+	 */
+	public static PersianCalendar toCalendar(int dateKey) {
+		return PersianDates.toCalendar(dateKey);
+	}
+
+	/**
+	 * @return the smallest key of the month
+	 */
+	public static int monthStart(int year, int month) {
+		return PersianCalendarUtils.packDate(year, month, 1);
+	}
+
+	/**
+	 * @return the greatest key the month can hold; use it as an inclusive
+	 *         bound, it is not a date of every month
+	 */
+	public static int monthEnd(int year, int month) {
+		return PersianCalendarUtils.packDate(year, month, 31);
+	}
+
+	public static int yearStart(int year) {
+		return monthStart(year, 0);
+	}
+
+	/**
+	 * @return the greatest key the year can hold, an inclusive bound
+	 */
+	public static int yearEnd(int year) {
+		return monthEnd(year, 11);
+	}
+
+	// date-time keys
+
+	/**
+	 * @param millisOfDay
+	 *            local time of the day, 0 to 86399999
+	 */
+	public static long dateTimeKey(int dateKey, int millisOfDay) {
+		if (millisOfDay < 0 || millisOfDay >= PersianCalendarConstants.MILLIS_OF_A_DAY)
+			throw new IllegalArgumentException("millisOfDay is not valid: " + millisOfDay);
+		return (long) dateKey << MILLIS_BITS | millisOfDay;
+	}
+
+	/**
+	 * @return the key of the instant's local date and time in the zone
+	 */
+	public static long dateTimeKey(long millis, TimeZone zone) {
+		long localMillis = millis + zone.getOffset(millis);
+		long epochDay = PersianCalendarUtils.floorDiv(localMillis, PersianCalendarConstants.MILLIS_OF_A_DAY);
+		int millisOfDay = (int) (localMillis - epochDay * PersianCalendarConstants.MILLIS_OF_A_DAY);
+		return dateTimeKey(PersianCalendarUtils.epochDayToPackedDate(epochDay), millisOfDay);
+	}
+
+	public static long dateTimeKey(PersianCalendar persianCalendar) {
+		return dateTimeKey(persianCalendar.getTimeInMillis(), persianCalendar.getTimeZone());
+	}
+
+	public static int dateKeyOf(long dateTimeKey) {
+		return (int) (dateTimeKey >> MILLIS_BITS);
+	}
+
+	public static int millisOfDay(long dateTimeKey) {
+		return (int) (dateTimeKey & MILLIS_MASK);
+	}
+
+	/**
+	 * @return the instant of the local date and time in the zone
+	 */
+	public static long toMillis(long dateTimeKey, TimeZone zone) {
+		return PersianDates.localToMillis(PersianDates.toEpochDay(dateKeyOf(dateTimeKey))
+				* PersianCalendarConstants.MILLIS_OF_A_DAY + millisOfDay(dateTimeKey), zone);
+	}
+
+	/**
+	 * @return the smallest date-time key of the date; with
+	 *         {@link #monthStart} it bounds a month of date-time keys
+	 */
+	public static long dayStart(int dateKey) {
+		return (long) dateKey << MILLIS_BITS;
+	}
+
+	/**
+	 * @return the greatest date-time key of the date
+	 */
+	public static long dayEnd(int dateKey) {
+		return dateTimeKey(dateKey, (int) PersianCalendarConstants.MILLIS_OF_A_DAY - 1);
+	}
+
+}
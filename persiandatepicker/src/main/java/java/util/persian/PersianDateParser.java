@@ -101,6 +101,7 @@ public class PersianDateParser {
 	 * @exception RuntimeException
 	 */
 	public PersianCalendar getPersianDate() {
+		long start = PersianMetrics.start();
 
 		checkDateStringInitialValidation();
 
@@ -114,6 +115,7 @@ public class PersianDateParser {
 		PersianCalendar pCal = new PersianCalendar();
 		pCal.setPersianDate(year, month - 1, day);
 
+		PersianMetrics.end(PersianMetrics.PARSE, start);
 		return pCal;
 	}
 
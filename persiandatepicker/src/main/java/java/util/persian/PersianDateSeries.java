@@ -0,0 +1,485 @@
+package java.util.persian;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A column of days, e.g. the dates of millions of events, with bulk Persian
+ * calendar operations: bucketing by Persian week, month and year, filtering by
+ * a Persian date range, and min/max. No calendar object is created per row.
+ * Instead the start day of every year in the column is computed once, and each
+ * row becomes a lookup in that table plus some arithmetic. Rows are processed
+ * in blocks that fit in the CPU cache. Each bulk operation can also take an
+ * {@link ExecutorService}, which then processes the blocks in parallel.
+ *
+ * <pre>
+ *  {@code
+ *    PersianDateSeries series = PersianDateSeries.fromMillis(timestamps, zone);
+ *    PersianDateSeries.Buckets months = series.count(PersianDateSeries.MONTH);
+ *    for (int i = 0; i < months.size(); i++)
+ *        print(PersianDates.format(months.start(i)), months.count(i));
+ *  }
+ * </pre>
+ *
+ * The series wraps its array without copying it; it must not be changed
+ * afterwards.
+ */
+public final class PersianDateSeries {
+
+	/** weeks starting on Saturday, ids are {@code floor((epochDay + 5) / 7)} */
+	public static final int WEEK = 0;
+	/** ids are {@code year * 12 + month} */
+	public static final int MONTH = 1;
+	/** ids are the year */
+	public static final int YEAR = 2;
+
+	static final int BLOCK = 4096;
+
+	// beyond this many years or buckets, fall back to slower paths instead of
+	// allocating big tables
+	private static final int MAX_TABLE_YEARS = 10000;
+	private static final int MAX_DENSE_BUCKETS = 1 << 22;
+
+	private final int[] epochDays;
+	private final int size;
+	private final int min;
+	private final int max;
+	// start days of the years in the series, built on first use
+	private volatile YearTable yearTable;
+
+	/**
+	 * @param epochDays
+	 *            days since 1970-01-01, not copied
+	 */
+	public PersianDateSeries(int[] epochDays) {
+		this(epochDays, epochDays.length);
+	}
+
+	/**
+	 * @param size
+	 *            number of leading days of the array in use
+	 */
+	public PersianDateSeries(int[] epochDays, int size) {
+		if (size < 0 || size > epochDays.length)
+			throw new IllegalArgumentException("size is not valid: " + size);
+		this.epochDays = epochDays;
+		this.size = size;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			int epochDay = epochDays[i];
+			if (epochDay < min)
+				min = epochDay;
+			if (epochDay > max)
+				max = epochDay;
+		}
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @return the local dates of the instants in the zone
+	 */
+	public static PersianDateSeries fromMillis(long[] millis, TimeZone zone) {
+		int[] epochDays = new int[millis.length];
+		for (int i = 0; i < millis.length; i++) {
+			long local = millis[i] + zone.getOffset(millis[i]);
+			epochDays[i] = (int) PersianCalendarUtils.floorDiv(local, PersianCalendarConstants.MILLIS_OF_A_DAY);
+		}
+		return new PersianDateSeries(epochDays);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return days since 1970-01-01 of the row
+	 */
+	public int epochDay(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		return epochDays[index];
+	}
+
+	/**
+	 * @return the packed Persian date of the row
+	 */
+	public int date(int index) {
+		return PersianCalendarUtils.epochDayToPackedDate(epochDay(index));
+	}
+
+	/**
+	 * @return the earliest epoch day
+	 * @throws IllegalStateException
+	 *             if the series is empty
+	 */
+	public int minEpochDay() {
+		checkNotEmpty();
+		return min;
+	}
+
+	/**
+	 * @return the latest epoch day
+	 * @throws IllegalStateException
+	 *             if the series is empty
+	 */
+	public int maxEpochDay() {
+		checkNotEmpty();
+		return max;
+	}
+
+	/**
+	 * @return the earliest packed date
+	 */
+	public int minDate() {
+		return PersianCalendarUtils.epochDayToPackedDate(minEpochDay());
+	}
+
+	/**
+	 * @return the latest packed date
+	 */
+	public int maxDate() {
+		return PersianCalendarUtils.epochDayToPackedDate(maxEpochDay());
+	}
+
+	// conversion
+
+	/**
+	 * @param out
+	 *            receives the packed date of every row, at least
+	 *            {@link #size()} long
+	 * @return out
+	 */
+	public int[] toDates(int[] out) {
+		return map(DATE, out, null);
+	}
+
+	public int[] toDates(int[] out, ExecutorService executor) {
+		return map(DATE, out, executor);
+	}
+
+	// bucketing
+
+	/**
+	 * @param unit
+	 *            {@link #WEEK}, {@link #MONTH} or {@link #YEAR}
+	 * @param out
+	 *            receives the bucket id of every row, at least
+	 *            {@link #size()} long
+	 * @return out
+	 */
+	public int[] bucketIds(int unit, int[] out) {
+		return map(checkUnit(unit), out, null);
+	}
+
+	public int[] bucketIds(int unit, int[] out, ExecutorService executor) {
+		return map(checkUnit(unit), out, executor);
+	}
+
+	/**
+	 * Counts the rows of each bucket.
+	 *
+	 * @param unit
+	 *            {@link #WEEK}, {@link #MONTH} or {@link #YEAR}
+	 * @return the non-empty buckets in ascending order
+	 */
+	public Buckets count(int unit) {
+		return count(unit, null);
+	}
+
+	public Buckets count(final int unit, ExecutorService executor) {
+		checkUnit(unit);
+		if (size == 0)
+			return new Buckets(unit, new int[0], new int[0], 0);
+		final YearTable table = yearTable();
+		// ids grow with the day, so the ids of min and max bound all others
+		final int firstId = bucketId(unit, min, table);
+		long buckets = (long) bucketId(unit, max, table) - firstId + 1;
+		if (buckets > MAX_DENSE_BUCKETS)
+			return countSorted(unit, bucketIds(unit, new int[size], executor));
+
+		final int length = (int) buckets;
+		int[] counts;
+		if (executor == null) {
+			counts = countRange(unit, table, firstId, length, 0, size);
+		} else {
+			List<int[]> parts = invokeAll(executor, new RangeTask<int[]>() {
+				@Override
+				public int[] call(int from, int to) {
+					return countRange(unit, table, firstId, length, from, to);
+				}
+			});
+			counts = parts.get(0);
+			for (int p = 1; p < parts.size(); p++) {
+				int[] part = parts.get(p);
+				for (int i = 0; i < length; i++)
+					counts[i] += part[i];
+			}
+		}
+
+		int nonEmpty = 0;
+		for (int i = 0; i < length; i++)
+			if (counts[i] != 0)
+				nonEmpty++;
+		int[] ids = new int[nonEmpty];
+		int[] bucketCounts = new int[nonEmpty];
+		for (int i = 0, j = 0; i < length; i++) {
+			if (counts[i] != 0) {
+				ids[j] = firstId + i;
+				bucketCounts[j++] = counts[i];
+			}
+		}
+		return new Buckets(unit, ids, bucketCounts, nonEmpty);
+	}
+
+	/**
+	 * @param unit
+	 *            {@link #WEEK}, {@link #MONTH} or {@link #YEAR}
+	 * @return the packed date of the first day of the bucket
+	 */
+	public static int bucketStart(int unit, int id) {
+		switch (checkUnit(unit)) {
+		case WEEK:
+			return PersianCalendarUtils.epochDayToPackedDate(id * 7L - 5);
+		case MONTH:
+			int year = (int) PersianCalendarUtils.floorDiv(id, 12);
+			return PersianCalendarUtils.packDate(year, id - year * 12, 1);
+		default:
+			return PersianCalendarUtils.packDate(id, 0, 1);
+		}
+	}
+
+	// filtering
+
+	/**
+	 * @param from
+	 *            first packed date, inclusive
+	 * @param to
+	 *            last packed date, inclusive
+	 * @return a new series of the rows within the dates, in their order
+	 */
+	public PersianDateSeries filter(int from, int to) {
+		// compare epoch days, so no row needs converting
+		int first = PersianDates.toEpochDay(from);
+		int last = PersianDates.toEpochDay(to);
+		if (size == 0 || first <= min && last >= max)
+			return new PersianDateSeries(Arrays.copyOf(epochDays, size));
+		int[] matches = new int[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			int epochDay = epochDays[i];
+			matches[count] = epochDay;
+			// branch free, the row is kept by advancing the count
+			count += ((epochDay - first) | (last - epochDay)) >>> 31 ^ 1;
+		}
+		return new PersianDateSeries(Arrays.copyOf(matches, count));
+	}
+
+	// implementation
+
+	private static final int DATE = -1;
+
+	private int[] map(final int unit, final int[] out, ExecutorService executor) {
+		if (out.length < size)
+			throw new IllegalArgumentException("out is shorter than the series");
+		if (size == 0)
+			return out;
+		final YearTable table = yearTable();
+		if (executor == null) {
+			mapRange(unit, table, out, 0, size);
+		} else {
+			invokeAll(executor, new RangeTask<Void>() {
+				@Override
+				public Void call(int from, int to) {
+					mapRange(unit, table, out, from, to);
+					return null;
+				}
+			});
+		}
+		return out;
+	}
+
+	private void mapRange(int unit, YearTable table, int[] out, int from, int to) {
+		for (int i = from; i < to; i++)
+			out[i] = unit == DATE ? packedDate(epochDays[i], table) : bucketId(unit, epochDays[i], table);
+	}
+
+	private int[] countRange(int unit, YearTable table, int firstId, int length, int from, int to) {
+		int[] counts = new int[length];
+		int[] ids = new int[Math.min(BLOCK, to - from)];
+		for (int start = from; start < to; start += BLOCK) {
+			int end = Math.min(start + BLOCK, to);
+			for (int i = start; i < end; i++)
+				ids[i - start] = bucketId(unit, epochDays[i], table);
+			for (int i = 0; i < end - start; i++)
+				counts[ids[i] - firstId]++;
+		}
+		return counts;
+	}
+
+	private static Buckets countSorted(int unit, int[] ids) {
+		Arrays.sort(ids);
+		int[] bucketIds = new int[ids.length];
+		int[] counts = new int[ids.length];
+		int buckets = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (buckets == 0 || bucketIds[buckets - 1] != ids[i]) {
+				bucketIds[buckets] = ids[i];
+				buckets++;
+			}
+			counts[buckets - 1]++;
+		}
+		return new Buckets(unit, bucketIds, counts, buckets);
+	}
+
+	private static int bucketId(int unit, int epochDay, YearTable table) {
+		if (unit == WEEK)
+			return (int) PersianCalendarUtils.floorDiv(epochDay + 5L, 7);
+		int date = packedDate(epochDay, table);
+		int year = PersianCalendarUtils.packedYear(date);
+		return unit == YEAR ? year : year * 12 + PersianCalendarUtils.packedMonth(date);
+	}
+
+	private static int packedDate(int epochDay, YearTable table) {
+		if (table == null)
+			return PersianCalendarUtils.epochDayToPackedDate(epochDay);
+		int[] starts = table.starts;
+		int i = (int) ((epochDay - (long) starts[0]) * 10000 / 3652422);
+		if (i >= starts.length - 1)
+			i = starts.length - 2;
+		while (starts[i] > epochDay)
+			i--;
+		while (starts[i + 1] <= epochDay)
+			i++;
+		return PersianCalendarUtils.dayOfYearToPackedDate(table.firstYear + i, epochDay - starts[i]);
+	}
+
+	/**
+	 * @return the year table of the series, or null if the years span too
+	 *         many years to tabulate
+	 */
+	private YearTable yearTable() {
+		YearTable table = yearTable;
+		if ((table == null || table.engine != PersianCalendarUtils.getEngine()) && size > 0) {
+			int firstYear = PersianCalendarUtils.packedYear(PersianCalendarUtils.epochDayToPackedDate(min));
+			int lastYear = PersianCalendarUtils.packedYear(PersianCalendarUtils.epochDayToPackedDate(max));
+			if (lastYear - firstYear >= MAX_TABLE_YEARS)
+				return null;
+			int[] starts = new int[lastYear - firstYear + 2];
+			for (int i = 0; i < starts.length; i++)
+				starts[i] = PersianCalendarUtils.persianToEpochDay(firstYear + i, 0, 1);
+			table = new YearTable(PersianCalendarUtils.getEngine(), firstYear, starts);
+			yearTable = table;
+		}
+		return table;
+	}
+
+	private <T> List<T> invokeAll(ExecutorService executor, final RangeTask<T> task) {
+		int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, (size + BLOCK - 1) / BLOCK));
+		// whole blocks per chunk
+		int chunk = (size / chunks + BLOCK - 1) / BLOCK * BLOCK;
+		List<Callable<T>> calls = new ArrayList<Callable<T>>(chunks);
+		for (int start = 0; start < size; start += chunk) {
+			final int from = start;
+			final int to = Math.min(start + chunk, size);
+			calls.add(new Callable<T>() {
+				@Override
+				public T call() {
+					return task.call(from, to);
+				}
+			});
+		}
+		try {
+			List<T> results = new ArrayList<T>(calls.size());
+			for (Future<T> future : executor.invokeAll(calls))
+				results.add(future.get());
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void checkNotEmpty() {
+		if (size == 0)
+			throw new IllegalStateException("series is empty");
+	}
+
+	private static int checkUnit(int unit) {
+		if (unit != WEEK && unit != MONTH && unit != YEAR)
+			throw new IllegalArgumentException("unit is not valid: " + unit);
+		return unit;
+	}
+
+	private interface RangeTask<T> {
+		T call(int from, int to);
+	}
+
+	private static final class YearTable {
+		final int engine;
+		final int firstYear;
+		// epoch days of 1 Farvardin of firstYear .. firstYear + starts.length - 1
+		final int[] starts;
+
+		YearTable(int engine, int firstYear, int[] starts) {
+			this.engine = engine;
+			this.firstYear = firstYear;
+			this.starts = starts;
+		}
+	}
+
+	/**
+	 * Non-empty buckets and their row counts, in ascending order of id.
+	 */
+	public static final class Buckets {
+
+		private final int unit;
+		private final int[] ids;
+		private final int[] counts;
+		private final int size;
+
+		Buckets(int unit, int[] ids, int[] counts, int size) {
+			this.unit = unit;
+			this.ids = ids;
+			this.counts = counts;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public int id(int index) {
+			return ids[checkIndex(index)];
+		}
+
+		public int count(int index) {
+			return counts[checkIndex(index)];
+		}
+
+		/**
+		 * @return the packed date of the first day of the bucket
+		 */
+		public int start(int index) {
+			return bucketStart(unit, id(index));
+		}
+
+		private int checkIndex(int index) {
+			if (index >= size)
+				throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+			return index;
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+package java.util.persian;
+
+import java.util.PersianCalendar;
+
+/**
+ * A set of Persian dates, stored as one 366 bit bitmap per year (six longs),
+ * indexed by day of year. Membership tests and searching for the next date not
+ * in the set are bit operations, so the set can be consulted on every wheel
+ * step without calling back into application code.
+ *
+ * <pre>
+ *  {@code
+ *    PersianDateSet disabled = new PersianDateSet();
+ *    disabled.addWeekDay(6, 1400, 1410); // Fridays
+ *    disabled.add(1403, 0, 1);
+ *    datePicker.setDisabledDates(disabled);
+ *  }
+ * </pre>
+ *
+ * Not thread safe; build it up front or confine it to the UI thread.
+ */
+public class PersianDateSet {
+
+	private static final int WORDS_PER_YEAR = 6;
+
+	// bitmaps of the years firstYear .. firstYear + years.length - 1, null
+	// for years without dates
+	private long[][] years = new long[0][];
+	private int firstYear;
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @param day
+	 *            int persian day
+	 * @return zero-based day of the year
+	 */
+	public static int dayOfYear(int month, int day) {
+		return (month < 6 ? month * 31 : 186 + (month - 6) * 30) + day - 1;
+	}
+
+	public static int yearLength(int year) {
+		return PersianCalendarUtils.isPersianLeapYear(year) ? 366 : 365;
+	}
+
+	public void add(int year, int month, int day) {
+		int dayOfYear = dayOfYear(month, day);
+		words(year, true)[dayOfYear >> 6] |= 1L << dayOfYear;
+	}
+
+	public void remove(int year, int month, int day) {
+		long[] words = words(year, false);
+		if (words != null) {
+			int dayOfYear = dayOfYear(month, day);
+			words[dayOfYear >> 6] &= ~(1L << dayOfYear);
+		}
+	}
+
+	/**
+	 * Adds every day from the first to the last date, both inclusive.
+	 */
+	public void addRange(int fromYear, int fromMonth, int fromDay, int toYear, int toMonth, int toDay) {
+		for (int year = fromYear; year <= toYear; year++) {
+			int first = year == fromYear ? dayOfYear(fromMonth, fromDay) : 0;
+			int last = year == toYear ? dayOfYear(toMonth, toDay) : yearLength(year) - 1;
+			if (first <= last)
+				setBits(words(year, true), first, last);
+		}
+	}
+
+	/**
+	 * Adds every occurrence of a week day in the given years, e.g. to block
+	 * weekends.
+	 *
+	 * @param persianWeekDay
+	 *            index into {@link PersianCalendarConstants#persianWeekDays},
+	 *            Saturday being 0 and Friday 6
+	 */
+	public void addWeekDay(int persianWeekDay, int fromYear, int toYear) {
+		for (int year = fromYear; year <= toYear; year++) {
+			long[] words = words(year, true);
+			int firstWeekDay = PersianCalendarUtils.persianWeekDay(PersianCalendarUtils.persianToEpochDay(year, 0, 1));
+			int length = yearLength(year);
+			for (int dayOfYear = (persianWeekDay - firstWeekDay + 7) % 7; dayOfYear < length; dayOfYear += 7)
+				words[dayOfYear >> 6] |= 1L << dayOfYear;
+		}
+	}
+
+	public boolean contains(int year, int month, int day) {
+		return containsDayOfYear(year, dayOfYear(month, day));
+	}
+
+	public boolean containsDayOfYear(int year, int dayOfYear) {
+		int index = year - firstYear;
+		if (index < 0 || index >= years.length || years[index] == null)
+			return false;
+		return (years[index][dayOfYear >> 6] & (1L << dayOfYear)) != 0;
+	}
+
+	public void clear() {
+		years = new long[0][];
+	}
+
+	/**
+	 * Finds the closest date not in this set, starting at (and including) the
+	 * given date and moving forward or backward through the calendar.
+	 *
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @param day
+	 *            int persian day
+	 * @param forward
+	 *            direction of the search
+	 * @param minYear
+	 *            first year to search
+	 * @param maxYear
+	 *            last year to search
+	 * @return the date packed as by {@link PersianCalendar#jp(long)}, or -1 if
+	 *         every date up to the year bound is in the set
+	 */
+	public long nextNotContained(int year, int month, int day, boolean forward, int minYear, int maxYear) {
+		int dayOfYear = dayOfYear(month, day);
+		while (year >= minYear && year <= maxYear) {
+			int length = yearLength(year);
+			int found = forward ? nextClearBit(year, dayOfYear, length) : previousClearBit(year, Math.min(dayOfYear, length - 1));
+			if (found >= 0)
+				return pack(year, found);
+			year += forward ? 1 : -1;
+			dayOfYear = forward ? 0 : 365;
+		}
+		return -1;
+	}
+
+	private int nextClearBit(int year, int from, int length) {
+		int index = year - firstYear;
+		if (index < 0 || index >= years.length || years[index] == null)
+			return from < length ? from : -1;
+		long[] words = years[index];
+		int wordIndex = from >> 6;
+		long word = ~words[wordIndex] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				int bit = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+				return bit < length ? bit : -1;
+			}
+			if (++wordIndex == WORDS_PER_YEAR)
+				return -1;
+			word = ~words[wordIndex];
+		}
+	}
+
+	private int previousClearBit(int year, int from) {
+		int index = year - firstYear;
+		if (index < 0 || index >= years.length || years[index] == null)
+			return from;
+		long[] words = years[index];
+		int wordIndex = from >> 6;
+		long word = ~words[wordIndex] & (-1L >>> (63 - (from & 63)));
+		while (true) {
+			if (word != 0)
+				return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+			if (wordIndex-- == 0)
+				return -1;
+			word = ~words[wordIndex];
+		}
+	}
+
+	private static long pack(int year, int dayOfYear) {
+		int date = PersianCalendarUtils.dayOfYearToPackedDate(year, dayOfYear);
+		return ((long) year << 16) | (PersianCalendarUtils.packedMonth(date) << 8) | PersianCalendarUtils.packedDay(date);
+	}
+
+	private static void setBits(long[] words, int first, int last) {
+		for (int bit = first; bit <= last; bit++)
+			words[bit >> 6] |= 1L << bit;
+	}
+
+	private long[] words(int year, boolean create) {
+		int index = year - firstYear;
+		if (index >= 0 && index < years.length && years[index] != null)
+			return years[index];
+		if (!create)
+			return null;
+		if (years.length == 0) {
+			years = new long[1][];
+			firstYear = year;
+			index = 0;
+		} else if (index < 0) {
+			long[][] grown = new long[years.length - index][];
+			System.arraycopy(years, 0, grown, -index, years.length);
+			years = grown;
+			firstYear = year;
+			index = 0;
+		} else if (index >= years.length) {
+			long[][] grown = new long[index + 1][];
+			System.arraycopy(years, 0, grown, 0, years.length);
+			years = grown;
+		}
+		return years[index] = new long[WORDS_PER_YEAR];
+	}
+
+}
@@ -0,0 +1,315 @@
+package java.util.persian;
+
+import java.util.PersianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Conversion, parsing, formatting and arithmetic of Persian dates without any
+ * mutable state, safe to call from any number of threads. Where
+ * {@link PersianCalendar} and {@link PersianDateParser} need an instance per
+ * thread, this class works on dates {@link PersianCalendarUtils#packDate
+ * packed} into an int, which are values that can be shared freely.
+ *
+ * <pre>
+ *  {@code
+ *    int date = PersianDates.parse("1403/1/1");
+ *    int nextMonth = PersianDates.plusMonths(date, 1);
+ *    String text = PersianDates.format(nextMonth); // 1403/02/01
+ *  }
+ * </pre>
+ *
+ * Months are zero-based, as everywhere else in this package.
+ */
+public final class PersianDates {
+
+	private PersianDates() {
+	}
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return the packed date
+	 * @throws IllegalArgumentException
+	 *             if the date does not exist
+	 */
+	public static int of(int year, int month, int day) {
+		if (!isValid(year, month, day))
+			throw new IllegalArgumentException("date is not valid: " + year + "/" + (month + 1) + "/" + day);
+		return PersianCalendarUtils.packDate(year, month, day);
+	}
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 */
+	public static boolean isValid(int year, int month, int day) {
+		return year >= 1 && month >= 0 && month <= 11 && day >= 1 && day <= PersianCalendarUtils.persianMonthLength(year, month);
+	}
+
+	public static int year(int date) {
+		return PersianCalendarUtils.packedYear(date);
+	}
+
+	/**
+	 * @return the Persian month (zero-based)
+	 */
+	public static int month(int date) {
+		return PersianCalendarUtils.packedMonth(date);
+	}
+
+	public static int day(int date) {
+		return PersianCalendarUtils.packedDay(date);
+	}
+
+	// conversion
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 */
+	public static int fromEpochDay(long epochDay) {
+		return PersianCalendarUtils.epochDayToPackedDate(epochDay);
+	}
+
+	/**
+	 * @return days since 1970-01-01
+	 */
+	public static int toEpochDay(int date) {
+		return PersianCalendarUtils.persianToEpochDay(year(date), month(date), day(date));
+	}
+
+	/**
+	 * @return the date of the instant in the given time zone
+	 */
+	public static int fromMillis(long millis, TimeZone zone) {
+		return fromEpochDay(PersianCalendarUtils.floorDiv(millis + zone.getOffset(millis), PersianCalendarConstants.MILLIS_OF_A_DAY));
+	}
+
+	/**
+	 * @return the instant the date starts at in the given time zone
+	 */
+	public static long toMillis(int date, TimeZone zone) {
+		return localToMillis(toEpochDay(date) * PersianCalendarConstants.MILLIS_OF_A_DAY, zone);
+	}
+
+	/**
+	 * @return the first instant the wall clock shows the local time, or a later
+	 *         one, in the zone: the earlier one if the clocks were set back
+	 *         over it, and the instant they were set forward at if they skipped
+	 *         it, so that day starts never fall after an instant of the day
+	 */
+	static long localToMillis(long localMillis, TimeZone zone) {
+		long millis = localMillis - zone.getOffset(localMillis - zone.getRawOffset());
+		// the offset may change in between, e.g. at a daylight saving transition
+		int offset = zone.getOffset(millis);
+		if (millis + offset != localMillis)
+			millis = localMillis - offset;
+		// with the offset before a transition within the day before, the time
+		// may have happened earlier, or between the two the clocks skipped it
+		long before = localMillis - zone.getOffset(millis - PersianCalendarConstants.MILLIS_OF_A_DAY);
+		if (millis + zone.getOffset(millis) == localMillis)
+			return before < millis && before + zone.getOffset(before) == localMillis ? before : millis;
+		long after = localMillis - zone.getOffset(millis);
+		long low = Math.min(after, before);
+		long high = Math.max(after, before);
+		while (high - low > 1) {
+			long mid = low + (high - low) / 2;
+			if (mid + zone.getOffset(mid) >= localMillis)
+				high = mid;
+			else
+				low = mid;
+		}
+		return high;
+	}
+
+	public static int fromCalendar(PersianCalendar persianCalendar) {
+		return PersianCalendarUtils.packDate(persianCalendar.getPersianYear(), persianCalendar.getPersianMonth(),
+				persianCalendar.getPersianDay());
+	}
+
+	/**
+	 * @return a new calendar set to the start of the date in the default time
+	 *         zone
+	 */
+	public static PersianCalendar toCalendar(int date) {
+		return new PersianCalendar(toMillis(date, TimeZone.getDefault()));
+	}
+
+	// arithmetic
+
+	public static int plusDays(int date, long days) {
+		return days == 0 ? date : fromEpochDay(toEpochDay(date) + days);
+	}
+
+	/**
+	 * Adds months, moving the day to the last day of the month when the
+	 * resulting month is shorter, e.g. 1403/06/31 plus one month is
+	 * 1403/07/30.
+	 */
+	public static int plusMonths(int date, long months) {
+		long monthIndex = year(date) * 12L + month(date) + months;
+		int year = (int) PersianCalendarUtils.floorDiv(monthIndex, 12);
+		int month = (int) (monthIndex - year * 12L);
+		return PersianCalendarUtils.packDate(year, month, Math.min(day(date), PersianCalendarUtils.persianMonthLength(year, month)));
+	}
+
+	public static int plusYears(int date, int years) {
+		return plusMonths(date, years * 12L);
+	}
+
+	/**
+	 * @return days from {@code from} to {@code to}, negative if {@code to} is
+	 *         earlier
+	 */
+	public static int daysBetween(int from, int to) {
+		return toEpochDay(to) - toEpochDay(from);
+	}
+
+	/**
+	 * @return index into {@link PersianCalendarConstants#persianWeekDays},
+	 *         Saturday being 0
+	 */
+	public static int weekDay(int date) {
+		return PersianCalendarUtils.persianWeekDay(toEpochDay(date));
+	}
+
+	public static int monthLength(int date) {
+		return PersianCalendarUtils.persianMonthLength(year(date), month(date));
+	}
+
+	public static boolean isLeapYear(int date) {
+		return PersianCalendarUtils.isPersianLeapYear(year(date));
+	}
+
+	// parsing
+
+	/**
+	 * Parses {@code year/month/day}, as {@link PersianDateParser} does.
+	 */
+	public static int parse(CharSequence text) {
+		return parse(text, '/');
+	}
+
+	/**
+	 * Parses {@code year[delimiter]month[delimiter]day}, with a one-based
+	 * month. Latin, Persian and Arabic digits are accepted.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the text is not a valid date
+	 */
+	public static int parse(CharSequence text, char delimiter) {
+		long start = PersianMetrics.start();
+		int date = parseDate(text, delimiter);
+		PersianMetrics.end(PersianMetrics.PARSE, start);
+		return date;
+	}
+
+	private static int parseDate(CharSequence text, char delimiter) {
+		if (text == null)
+			throw new IllegalArgumentException("text is null");
+		int[] fields = new int[3];
+		int field = 0;
+		int digits = 0;
+		for (int i = 0, length = text.length(); i < length; i++) {
+			char c = text.charAt(i);
+			int digit = digit(c);
+			if (digit >= 0) {
+				if (++digits > 9)
+					throw new IllegalArgumentException("wrong date: " + text + " is not a Persian Date or can not be parsed");
+				fields[field] = fields[field] * 10 + digit;
+			} else if (c == delimiter && digits > 0 && field < 2) {
+				field++;
+				digits = 0;
+			} else {
+				throw new IllegalArgumentException("wrong date: " + text + " is not a Persian Date or can not be parsed");
+			}
+		}
+		if (field != 2 || digits == 0)
+			throw new IllegalArgumentException("wrong date: " + text + " is not a Persian Date or can not be parsed");
+		return of(fields[0], fields[1] - 1, fields[2]);
+	}
+
+	private static int digit(char c) {
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		if (c >= '\u06f0' && c <= '\u06f9')
+			return c - '\u06f0';
+		if (c >= '\u0660' && c <= '\u0669')
+			return c - '\u0660';
+		return -1;
+	}
+
+	// formatting
+
+	/**
+	 * @return the date as {@code yyyy/mm/dd}, like
+	 *         {@link PersianCalendar#getPersianShortDate()}
+	 */
+	public static String format(int date) {
+		return format(date, '/');
+	}
+
+	public static String format(int date, char delimiter) {
+		long start = PersianMetrics.start();
+		String text = appendShortDate(new StringBuilder(10), date, delimiter).toString();
+		PersianMetrics.end(PersianMetrics.FORMAT, start);
+		return text;
+	}
+
+	/**
+	 * @return the date like {@link PersianCalendar#getPersianLongDate()}
+	 */
+	public static String formatLong(int date) {
+		long start = PersianMetrics.start();
+		String text = PersianCalendar.appendPersianLongDate(new StringBuilder(32), year(date), month(date), day(date)).toString();
+		PersianMetrics.end(PersianMetrics.FORMAT, start);
+		return text;
+	}
+
+	/**
+	 * @return the instant as {@code yyyy/mm/dd HH:mm:ss.SSS} in the zone, e.g.
+	 *         for log lines
+	 */
+	public static String formatDateTime(long millis, TimeZone zone) {
+		long start = PersianMetrics.start();
+		String text = appendDateTime(new StringBuilder(23), millis, zone, '/', true).toString();
+		PersianMetrics.end(PersianMetrics.FORMAT, start);
+		return text;
+	}
+
+	/**
+	 * Appends the instant as {@code yyyy/mm/dd HH:mm:ss[.SSS]} in the zone.
+	 * The zone offset is looked up once and the date and the time of day are
+	 * both derived from the local millis, so a reused builder makes this free
+	 * of allocations.
+	 */
+	public static StringBuilder appendDateTime(StringBuilder out, long millis, TimeZone zone, char delimiter, boolean withMillis) {
+		long localMillis = millis + zone.getOffset(millis);
+		long epochDay = PersianCalendarUtils.floorDiv(localMillis, PersianCalendarConstants.MILLIS_OF_A_DAY);
+		appendShortDate(out, fromEpochDay(epochDay), delimiter).append(' ');
+		return appendTime(out, (int) (localMillis - epochDay * PersianCalendarConstants.MILLIS_OF_A_DAY), withMillis);
+	}
+
+	/**
+	 * Appends {@code HH:mm:ss[.SSS]}.
+	 *
+	 * @param millisOfDay
+	 *            local time of the day, 0 to 86399999
+	 */
+	public static StringBuilder appendTime(StringBuilder out, int millisOfDay, boolean withMillis) {
+		int seconds = millisOfDay / 1000;
+		PersianHelper.appendNumber(out, seconds / 3600, 2, false).append(':');
+		PersianHelper.appendNumber(out, seconds / 60 % 60, 2, false).append(':');
+		PersianHelper.appendNumber(out, seconds % 60, 2, false);
+		if (withMillis)
+			PersianHelper.appendNumber(out.append('.'), millisOfDay % 1000, 3, false);
+		return out;
+	}
+
+	public static StringBuilder appendShortDate(StringBuilder out, int date, char delimiter) {
+		PersianHelper.appendNumber(out, year(date), 2, false).append(delimiter);
+		PersianHelper.appendNumber(out, month(date) + 1, 2, false).append(delimiter);
+		return PersianHelper.appendNumber(out, day(date), 2, false);
+	}
+
+}
@@ -0,0 +1,278 @@
+package java.util.persian;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PersianCalendar;
+
+/**
+ * Holidays and occasions of the Persian calendar, read from a compact binary
+ * dataset. Lookups are binary searches directly over the buffer, which is
+ * typically memory mapped, so only the titles of the events actually returned
+ * are ever copied onto the heap.
+ *
+ * <p>
+ * Dataset layout, big endian:
+ *
+ * <pre>
+ *  int    magic, {@link #MAGIC}
+ *  short  version, {@link #VERSION}
+ *  short  reserved
+ *  int    event count (n)
+ *  int    title count (t)
+ *  int[n]   dates, {@link PersianCalendarUtils#packDate packed}, ascending
+ *  short[n] title index of each date, high bit set for official holidays
+ *  int[t+1] offsets of the titles in the string data
+ *  byte[]   string data, UTF-8
+ * </pre>
+ *
+ * Dates are stored as Persian dates rather than epoch days, since holidays are
+ * announced as Persian dates and must not move with the leap year rule.
+ *
+ * <p>
+ * The bundled dataset covers 1350 to 1450 by the official calendar. Lunar
+ * holidays in it are placed by the Umm al-Qura calendar, and can be a day
+ * off from those Iran announces after sighting the moon.
+ */
+public final class PersianEvents {
+
+	public static final int MAGIC = 0x50455654; // "PEVT"
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int HOLIDAY_FLAG = 0x8000;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final ByteBuffer buffer;
+	private final int count;
+	private final int datesOffset;
+	private final int titlesOffset;
+	private final int stringOffsetsOffset;
+	private final int stringDataOffset;
+	// decoded on first use
+	private final String[] titles;
+
+	private PersianEvents(ByteBuffer buffer, int count, int titleCount) {
+		this.buffer = buffer;
+		this.count = count;
+		this.datesOffset = HEADER_SIZE;
+		this.titlesOffset = datesOffset + 4 * count;
+		this.stringOffsetsOffset = titlesOffset + 2 * count;
+		this.stringDataOffset = stringOffsetsOffset + 4 * (titleCount + 1);
+		this.titles = new String[titleCount];
+	}
+
+	/**
+	 * Opens a dataset. The buffer is not copied and must not be modified
+	 * afterwards.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not hold a dataset of this version
+	 */
+	public static PersianEvents read(ByteBuffer buffer) {
+		ByteBuffer data = buffer.duplicate();
+		data.order(ByteOrder.BIG_ENDIAN);
+		if (data.remaining() < HEADER_SIZE || data.getInt(data.position()) != MAGIC)
+			throw new IllegalArgumentException("not a persian events dataset");
+		if (data.getShort(data.position() + 4) != VERSION)
+			throw new IllegalArgumentException("unsupported persian events dataset version " + data.getShort(data.position() + 4));
+		data = data.slice();
+		int count = data.getInt(8);
+		int titleCount = data.getInt(12);
+		PersianEvents events = new PersianEvents(data, count, titleCount);
+		if (events.stringDataOffset > data.limit()
+				|| events.stringDataOffset + data.getInt(events.stringOffsetsOffset + 4 * titleCount) > data.limit())
+			throw new IllegalArgumentException("truncated persian events dataset");
+		return events;
+	}
+
+	/**
+	 * @return number of events in the dataset
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @param day
+	 *            int persian day
+	 * @return whether the date is an official holiday
+	 */
+	public boolean isHoliday(int year, int month, int day) {
+		int date = PersianCalendarUtils.packDate(year, month, day);
+		for (int i = lowerBound(date); i < count && dateAt(i) == date; i++) {
+			if ((titleAt(i) & HOLIDAY_FLAG) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	public boolean isHoliday(PersianCalendar persianCalendar) {
+		return isHoliday(persianCalendar.getPersianYear(), persianCalendar.getPersianMonth(), persianCalendar.getPersianDay());
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 */
+	public boolean isHolidayEpochDay(long epochDay) {
+		int date = PersianCalendarUtils.epochDayToPackedDate(epochDay);
+		return isHoliday(PersianCalendarUtils.packedYear(date), PersianCalendarUtils.packedMonth(date),
+				PersianCalendarUtils.packedDay(date));
+	}
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return the events of the day, holidays and occasions, in dataset order
+	 */
+	public List<Event> eventsOn(int year, int month, int day) {
+		int date = PersianCalendarUtils.packDate(year, month, day);
+		return events(date, date);
+	}
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return the events of the month, ordered by day
+	 */
+	public List<Event> eventsInMonth(int year, int month) {
+		return events(PersianCalendarUtils.packDate(year, month, 1), PersianCalendarUtils.packDate(year, month, 31));
+	}
+
+	/**
+	 * Adds the official holidays of the given years to a set, e.g. to disable
+	 * them in the date picker.
+	 *
+	 * @return number of holidays added
+	 */
+	public int addHolidaysTo(PersianDateSet set, int fromYear, int toYear) {
+		int last = PersianCalendarUtils.packDate(toYear, 11, 31);
+		int added = 0;
+		for (int i = lowerBound(PersianCalendarUtils.packDate(fromYear, 0, 1)); i < count; i++) {
+			int date = dateAt(i);
+			if (date > last)
+				break;
+			if ((titleAt(i) & HOLIDAY_FLAG) != 0) {
+				set.add(PersianCalendarUtils.packedYear(date), PersianCalendarUtils.packedMonth(date),
+						PersianCalendarUtils.packedDay(date));
+				added++;
+			}
+		}
+		return added;
+	}
+
+	private List<Event> events(int first, int last) {
+		List<Event> events = new ArrayList<Event>();
+		for (int i = lowerBound(first); i < count; i++) {
+			int date = dateAt(i);
+			if (date > last)
+				break;
+			int title = titleAt(i);
+			events.add(new Event(date, title(title & ~HOLIDAY_FLAG), (title & HOLIDAY_FLAG) != 0));
+		}
+		return events;
+	}
+
+	/**
+	 * @return index of the first event on or after the date
+	 */
+	private int lowerBound(int date) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (dateAt(mid) < date)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private int dateAt(int index) {
+		return buffer.getInt(datesOffset + 4 * index);
+	}
+
+	private int titleAt(int index) {
+		return buffer.getShort(titlesOffset + 2 * index) & 0xFFFF;
+	}
+
+	private String title(int index) {
+		String title = titles[index];
+		if (title == null) {
+			int start = buffer.getInt(stringOffsetsOffset + 4 * index);
+			int end = buffer.getInt(stringOffsetsOffset + 4 * (index + 1));
+			byte[] bytes = new byte[end - start];
+			ByteBuffer data = buffer.duplicate();
+			data.position(stringDataOffset + start);
+			data.get(bytes);
+			title = new String(bytes, UTF_8);
+			titles[index] = title;
+		}
+		return title;
+	}
+
+	/**
+	 * A holiday or occasion on a Persian date.
+	 */
+	public static final class Event {
+
+		private final int date;
+		private final String title;
+		private final boolean holiday;
+
+		Event(int date, String title, boolean holiday) {
+			this.date = date;
+			this.title = title;
+			this.holiday = holiday;
+		}
+
+		public int getYear() {
+			return PersianCalendarUtils.packedYear(date);
+		}
+
+		/**
+		 * @return the Persian month (zero-based)
+		 */
+		public int getMonth() {
+			return PersianCalendarUtils.packedMonth(date);
+		}
+
+		public int getDay() {
+			return PersianCalendarUtils.packedDay(date);
+		}
+
+		/**
+		 * @return the date {@link PersianCalendarUtils#packDate packed} into an
+		 *         int
+		 */
+		public int getPackedDate() {
+			return date;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		/**
+		 * @return whether the event is an official holiday rather than an
+		 *         occasion
+		 */
+		public boolean isHoliday() {
+			return holiday;
+		}
+
+		@Override
+		public String toString() {
+			return getYear() + "/" + (getMonth() + 1) + "/" + getDay() + " " + title + (holiday ? " (holiday)" : "");
+		}
+	}
+
+}
@@ -50,6 +50,34 @@ public class PersianHelper {
         return out;
     }
 
+    /**
+     * Appends {@code number}, zero padded to {@code minDigits}, without going through an
+     * intermediate String.
+     *
+     * @param persianDigits whether to write Persian or latin digits
+     */
+    public static StringBuilder appendNumber(StringBuilder out, long number, int minDigits, boolean persianDigits) {
+        char[] digitChars = persianDigits ? persianNumbers : englishNumbers;
+        if (number < 0) {
+            out.append('-');
+            number = -number;
+        }
+        int digits = 1;
+        for (long n = number; n >= 10; n /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            out.append(digitChars[0]);
+        }
+        int start = out.length();
+        out.setLength(start + digits);
+        for (int i = start + digits - 1; i >= start; i--) {
+            out.setCharAt(i, digitChars[(int) (number % 10)]);
+            number /= 10;
+        }
+        return out;
+    }
+
     private static int hasCharachter(char c) {
         for (int i = 0; i < persianNumbers.length; i++) {
             if (c == persianNumbers[i]) {
@@ -0,0 +1,341 @@
+package java.util.persian;
+
+import java.util.Arrays;
+
+/**
+ * An index of intervals of days, e.g. calendar events, answering which of them
+ * overlap a Persian day, week or month. It is an AVL tree ordered by first day,
+ * where every node also keeps the latest last day of its subtree, so a query
+ * skips the subtrees that end before it. Queries take O(log n + k) time for k
+ * results, and events can be added and removed one at a time.
+ *
+ * <p>
+ * Nodes live in parallel int arrays instead of objects, so hundreds of
+ * thousands of events cost a few megabytes and no per-event garbage.
+ *
+ * <pre>
+ *  {@code
+ *    PersianIntervalIndex index = new PersianIntervalIndex();
+ *    index.addDates(eventId, PersianDates.of(1403, 0, 1), PersianDates.of(1403, 0, 13));
+ *    int[] ids = index.queryMonth(1403, 0);
+ *  }
+ * </pre>
+ *
+ * Events are identified by an int id of the caller's choosing; days are
+ * inclusive on both ends. Not thread safe; confine it to one thread or guard
+ * it.
+ */
+public class PersianIntervalIndex {
+
+	// node 0 is the empty tree
+	private static final int NIL = 0;
+
+	private int[] ids = new int[16];
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private int[] maxEnds = new int[16];
+	private int[] lefts = new int[16];
+	private int[] rights = new int[16];
+	private int[] heights = new int[16];
+
+	private int root = NIL;
+	private int size;
+	// next never used node, and a list of removed nodes linked through lefts
+	private int nextNode = 1;
+	private int freeNodes = NIL;
+
+	// removal result, set by remove(int, ...)
+	private boolean removed;
+
+	// results of the current query
+	private int[] results = new int[16];
+	private int resultCount;
+
+	public PersianIntervalIndex() {
+		maxEnds[NIL] = Integer.MIN_VALUE;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// updates
+
+	/**
+	 * @param firstDay
+	 *            first epoch day of the event
+	 * @param lastDay
+	 *            last epoch day of the event, inclusive
+	 */
+	public void add(int id, int firstDay, int lastDay) {
+		if (lastDay < firstDay)
+			throw new IllegalArgumentException("lastDay is before firstDay");
+		root = insert(root, newNode(id, firstDay, lastDay));
+		size++;
+	}
+
+	/**
+	 * @param firstDate
+	 *            the {@link PersianCalendarUtils#packDate packed} first date
+	 * @param lastDate
+	 *            the packed last date, inclusive
+	 */
+	public void addDates(int id, int firstDate, int lastDate) {
+		add(id, PersianDates.toEpochDay(firstDate), PersianDates.toEpochDay(lastDate));
+	}
+
+	/**
+	 * Removes an event added with the same id and days.
+	 *
+	 * @return whether the event was in the index
+	 */
+	public boolean remove(int id, int firstDay, int lastDay) {
+		removed = false;
+		root = delete(root, id, firstDay, lastDay);
+		if (removed)
+			size--;
+		return removed;
+	}
+
+	public boolean removeDates(int id, int firstDate, int lastDate) {
+		return remove(id, PersianDates.toEpochDay(firstDate), PersianDates.toEpochDay(lastDate));
+	}
+
+	public void clear() {
+		root = NIL;
+		size = 0;
+		nextNode = 1;
+		freeNodes = NIL;
+	}
+
+	// queries
+
+	/**
+	 * @return ids of the events overlapping the days, both inclusive, in
+	 *         order of their first day
+	 */
+	public int[] query(int firstDay, int lastDay) {
+		resultCount = 0;
+		if (firstDay <= lastDay)
+			collect(root, firstDay, lastDay);
+		return Arrays.copyOf(results, resultCount);
+	}
+
+	/**
+	 * Calls the visitor for each event overlapping the days, both inclusive,
+	 * in order of their first day, without allocating.
+	 */
+	public void query(int firstDay, int lastDay, Visitor visitor) {
+		if (firstDay <= lastDay)
+			visit(root, firstDay, lastDay, visitor);
+	}
+
+	/**
+	 * @param date
+	 *            a {@link PersianCalendarUtils#packDate packed} date
+	 * @return ids of the events on the date
+	 */
+	public int[] queryDay(int date) {
+		int day = PersianDates.toEpochDay(date);
+		return query(day, day);
+	}
+
+	/**
+	 * @param date
+	 *            a {@link PersianCalendarUtils#packDate packed} date
+	 * @return ids of the events overlapping the Saturday to Friday week of the
+	 *         date
+	 */
+	public int[] queryWeek(int date) {
+		int day = PersianDates.toEpochDay(date);
+		int saturday = day - PersianCalendarUtils.persianWeekDay(day);
+		return query(saturday, saturday + 6);
+	}
+
+	/**
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return ids of the events overlapping the month
+	 */
+	public int[] queryMonth(int year, int month) {
+		int firstDay = PersianCalendarUtils.persianToEpochDay(year, month, 1);
+		return query(firstDay, firstDay + PersianCalendarUtils.persianMonthLength(year, month) - 1);
+	}
+
+	// tree
+
+	private int newNode(int id, int firstDay, int lastDay) {
+		int node;
+		if (freeNodes != NIL) {
+			node = freeNodes;
+			freeNodes = lefts[node];
+		} else {
+			if (nextNode == ids.length)
+				grow();
+			node = nextNode++;
+		}
+		ids[node] = id;
+		starts[node] = firstDay;
+		ends[node] = lastDay;
+		maxEnds[node] = lastDay;
+		lefts[node] = NIL;
+		rights[node] = NIL;
+		heights[node] = 1;
+		return node;
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+		maxEnds = Arrays.copyOf(maxEnds, capacity);
+		lefts = Arrays.copyOf(lefts, capacity);
+		rights = Arrays.copyOf(rights, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+	}
+
+	// orders by first day, then last day, then id
+	private int compare(int id, int firstDay, int lastDay, int node) {
+		if (firstDay != starts[node])
+			return firstDay < starts[node] ? -1 : 1;
+		if (lastDay != ends[node])
+			return lastDay < ends[node] ? -1 : 1;
+		return id < ids[node] ? -1 : id == ids[node] ? 0 : 1;
+	}
+
+	private int insert(int node, int added) {
+		if (node == NIL)
+			return added;
+		if (compare(ids[added], starts[added], ends[added], node) < 0)
+			lefts[node] = insert(lefts[node], added);
+		else
+			rights[node] = insert(rights[node], added);
+		return balance(node);
+	}
+
+	private int delete(int node, int id, int firstDay, int lastDay) {
+		if (node == NIL)
+			return NIL;
+		int c = compare(id, firstDay, lastDay, node);
+		if (c < 0) {
+			lefts[node] = delete(lefts[node], id, firstDay, lastDay);
+		} else if (c > 0) {
+			rights[node] = delete(rights[node], id, firstDay, lastDay);
+		} else {
+			removed = true;
+			int left = lefts[node];
+			int right = rights[node];
+			free(node);
+			if (left == NIL)
+				return right;
+			if (right == NIL)
+				return left;
+			// replace the node with the first node of its right subtree
+			int successor = right;
+			while (lefts[successor] != NIL)
+				successor = lefts[successor];
+			rights[successor] = removeFirst(right);
+			lefts[successor] = left;
+			return balance(successor);
+		}
+		return balance(node);
+	}
+
+	private int removeFirst(int node) {
+		if (lefts[node] == NIL)
+			return rights[node];
+		lefts[node] = removeFirst(lefts[node]);
+		return balance(node);
+	}
+
+	private void free(int node) {
+		lefts[node] = freeNodes;
+		freeNodes = node;
+	}
+
+	private void update(int node) {
+		int left = lefts[node];
+		int right = rights[node];
+		heights[node] = Math.max(heights[left], heights[right]) + 1;
+		maxEnds[node] = Math.max(ends[node], Math.max(maxEnds[left], maxEnds[right]));
+	}
+
+	private int balance(int node) {
+		update(node);
+		int factor = heights[lefts[node]] - heights[rights[node]];
+		if (factor > 1) {
+			int left = lefts[node];
+			if (heights[lefts[left]] < heights[rights[left]])
+				lefts[node] = rotateLeft(left);
+			return rotateRight(node);
+		}
+		if (factor < -1) {
+			int right = rights[node];
+			if (heights[rights[right]] < heights[lefts[right]])
+				rights[node] = rotateRight(right);
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private int rotateLeft(int node) {
+		int right = rights[node];
+		rights[node] = lefts[right];
+		lefts[right] = node;
+		update(node);
+		update(right);
+		return right;
+	}
+
+	private int rotateRight(int node) {
+		int left = lefts[node];
+		lefts[node] = rights[left];
+		rights[left] = node;
+		update(node);
+		update(left);
+		return left;
+	}
+
+	private void collect(int node, int firstDay, int lastDay) {
+		// nothing in the subtree reaches the first day
+		if (node == NIL || maxEnds[node] < firstDay)
+			return;
+		collect(lefts[node], firstDay, lastDay);
+		// this node and its right subtree start after the last day
+		if (starts[node] > lastDay)
+			return;
+		if (ends[node] >= firstDay) {
+			if (resultCount == results.length)
+				results = Arrays.copyOf(results, resultCount * 2);
+			results[resultCount++] = ids[node];
+		}
+		collect(rights[node], firstDay, lastDay);
+	}
+
+	private void visit(int node, int firstDay, int lastDay, Visitor visitor) {
+		if (node == NIL || maxEnds[node] < firstDay)
+			return;
+		visit(lefts[node], firstDay, lastDay, visitor);
+		if (starts[node] > lastDay)
+			return;
+		if (ends[node] >= firstDay)
+			visitor.visit(ids[node], starts[node], ends[node]);
+		visit(rights[node], firstDay, lastDay, visitor);
+	}
+
+	/**
+	 * Receives the events found by a query.
+	 */
+	public interface Visitor {
+
+		/**
+		 * @param firstDay
+		 *            first epoch day of the event
+		 * @param lastDay
+		 *            last epoch day of the event, inclusive
+		 */
+		void visit(int id, int firstDay, int lastDay);
+	}
+
+}
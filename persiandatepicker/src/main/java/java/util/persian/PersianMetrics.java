@@ -0,0 +1,174 @@
+package java.util.persian;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Optional instrumentation of conversions, parsing, formatting and caches.
+ * Nothing is measured until a {@link Listener} is set; without one every
+ * instrumented call only reads a null field, so the hook costs nothing in
+ * production unless it is used.
+ *
+ * <pre>
+ *  {@code
+ *    PersianMetrics.InMemory metrics = new PersianMetrics.InMemory();
+ *    PersianMetrics.setListener(metrics);
+ *    ...
+ *    long parses = metrics.getCount(PersianMetrics.PARSE);
+ *  }
+ * </pre>
+ *
+ * Listeners are called on the thread doing the work and must be thread safe
+ * and quick; bridge them to a metrics library rather than doing I/O.
+ */
+public final class PersianMetrics {
+
+	/** {@link java.util.PersianCalendar#calculatePersianDate()} */
+	public static final int CONVERSION = 0;
+	/** {@link java.util.PersianCalendar#setPersianDate(int, int, int)} */
+	public static final int SET_DATE = 1;
+	/** {@link PersianDateParser#getPersianDate()} and {@link PersianDates#parse} */
+	public static final int PARSE = 2;
+	/** the string formatting methods of PersianCalendar and PersianDates */
+	public static final int FORMAT = 3;
+
+	static final int OPERATIONS = 4;
+
+	/** {@link PersianDateCache} */
+	public static final int CACHE_DATES = 0;
+	/** the month cache of {@link PersianMonthMatrix} */
+	public static final int CACHE_MONTH_MATRIX = 1;
+
+	static final int CACHES = 2;
+
+	public static final int CACHE_HIT = 0;
+	public static final int CACHE_MISS = 1;
+	public static final int CACHE_EVICTION = 2;
+
+	static final int CACHE_EVENTS = 3;
+
+	private static volatile Listener listener;
+
+	private PersianMetrics() {
+	}
+
+	/**
+	 * @param listener
+	 *            receives the measurements, or {@code null} to turn them off
+	 */
+	public static void setListener(Listener listener) {
+		PersianMetrics.listener = listener;
+	}
+
+	/**
+	 * @return the listener, or {@code null} when metrics are off
+	 */
+	public static Listener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Starts timing an operation.
+	 *
+	 * @return the start time to pass to {@link #end(int, long)}, or 0 when
+	 *         metrics are off
+	 */
+	public static long start() {
+		return listener != null ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Reports an operation timed from {@link #start()}; nothing happens when
+	 * metrics were off at the start or are off now.
+	 *
+	 * @param operation
+	 *            one of {@link #CONVERSION}, {@link #SET_DATE}, {@link #PARSE}
+	 *            and {@link #FORMAT}
+	 */
+	public static void end(int operation, long start) {
+		Listener listener = PersianMetrics.listener;
+		if (listener != null && start != 0)
+			listener.onOperation(operation, System.nanoTime() - start);
+	}
+
+	/**
+	 * Reports a cache event if metrics are on.
+	 *
+	 * @param cache
+	 *            {@link #CACHE_DATES} or {@link #CACHE_MONTH_MATRIX}
+	 * @param event
+	 *            {@link #CACHE_HIT}, {@link #CACHE_MISS} or
+	 *            {@link #CACHE_EVICTION}
+	 */
+	public static void cacheEvent(int cache, int event) {
+		Listener listener = PersianMetrics.listener;
+		if (listener != null)
+			listener.onCacheEvent(cache, event);
+	}
+
+	/**
+	 * Receives the measurements.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param operation
+		 *            one of {@link #CONVERSION}, {@link #SET_DATE},
+		 *            {@link #PARSE} and {@link #FORMAT}
+		 * @param nanos
+		 *            time spent in the call
+		 */
+		void onOperation(int operation, long nanos);
+
+		/**
+		 * @param cache
+		 *            {@link #CACHE_DATES} or {@link #CACHE_MONTH_MATRIX}
+		 * @param event
+		 *            {@link #CACHE_HIT}, {@link #CACHE_MISS} or
+		 *            {@link #CACHE_EVICTION}
+		 */
+		void onCacheEvent(int cache, int event);
+	}
+
+	/**
+	 * Keeps counts and total times in memory, for tests and debugging.
+	 */
+	public static class InMemory implements Listener {
+
+		private final AtomicLongArray counts = new AtomicLongArray(OPERATIONS);
+		private final AtomicLongArray nanos = new AtomicLongArray(OPERATIONS);
+		private final AtomicLongArray cacheEvents = new AtomicLongArray(CACHES * CACHE_EVENTS);
+
+		@Override
+		public void onOperation(int operation, long nanos) {
+			counts.incrementAndGet(operation);
+			this.nanos.addAndGet(operation, nanos);
+		}
+
+		@Override
+		public void onCacheEvent(int cache, int event) {
+			cacheEvents.incrementAndGet(cache * CACHE_EVENTS + event);
+		}
+
+		public long getCount(int operation) {
+			return counts.get(operation);
+		}
+
+		public long getTotalNanos(int operation) {
+			return nanos.get(operation);
+		}
+
+		public long getCacheEvents(int cache, int event) {
+			return cacheEvents.get(cache * CACHE_EVENTS + event);
+		}
+
+		public void reset() {
+			for (int i = 0; i < OPERATIONS; i++) {
+				counts.set(i, 0);
+				nanos.set(i, 0);
+			}
+			for (int i = 0; i < cacheEvents.length(); i++)
+				cacheEvents.set(i, 0);
+		}
+	}
+
+}
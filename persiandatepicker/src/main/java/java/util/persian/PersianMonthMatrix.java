@@ -0,0 +1,191 @@
+package java.util.persian;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The 6 x 7 grid of a Persian month as shown by month calendars: weeks start on
+ * Saturday, the month starts in the first row and the cells before and after it
+ * belong to the adjacent months.
+ *
+ * <p>
+ * A matrix is immutable and only holds the epoch day of its first cell and the
+ * month's offsets; every cell is derived from those. Matrices are kept in a
+ * small LRU cache, so paging back and forth between months or reporting on the
+ * same months repeatedly computes each of them once.
+ *
+ * <pre>
+ *  {@code
+ *    PersianMonthMatrix matrix = PersianMonthMatrix.of(1403, 0);
+ *    for (int cell = 0; cell < PersianMonthMatrix.CELLS; cell++) {
+ *        int epochDay = matrix.getEpochDay(cell);
+ *        boolean inMonth = matrix.isInMonth(cell);
+ *    }
+ *  }
+ * </pre>
+ */
+public final class PersianMonthMatrix {
+
+	public static final int COLUMNS = 7;
+	public static final int ROWS = 6;
+	public static final int CELLS = COLUMNS * ROWS;
+
+	private static final int CACHE_SIZE = 48;
+
+	private static final Map<Integer, PersianMonthMatrix> cache = new LinkedHashMap<Integer, PersianMonthMatrix>(CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, PersianMonthMatrix> eldest) {
+			if (size() <= CACHE_SIZE)
+				return false;
+			PersianMetrics.cacheEvent(PersianMetrics.CACHE_MONTH_MATRIX, PersianMetrics.CACHE_EVICTION);
+			return true;
+		}
+	};
+
+	private final int year;
+	private final int month;
+	private final int firstCellEpochDay;
+	private final int monthLength;
+	private final int leadingDays;
+	private final int previousMonthLength;
+
+	private PersianMonthMatrix(int year, int month) {
+		this.year = year;
+		this.month = month;
+		int firstDay = PersianCalendarUtils.persianToEpochDay(year, month, 1);
+		this.leadingDays = PersianCalendarUtils.persianWeekDay(firstDay);
+		this.firstCellEpochDay = firstDay - leadingDays;
+		this.monthLength = PersianCalendarUtils.persianMonthLength(year, month);
+		this.previousMonthLength = month == 0 ? PersianCalendarUtils.persianMonthLength(year - 1, 11)
+				: PersianCalendarUtils.persianMonthLength(year, month - 1);
+	}
+
+	/**
+	 * Returns the matrix of the given month, from the cache when possible.
+	 *
+	 * @param year
+	 *            int persian year
+	 * @param month
+	 *            int persian month (zero-based)
+	 * @return PersianMonthMatrix
+	 */
+	public static PersianMonthMatrix of(int year, int month) {
+		if (month < 0 || month > 11)
+			throw new IllegalArgumentException("month is not valid");
+		Integer key = year * 12 + month;
+		synchronized (cache) {
+			PersianMonthMatrix matrix = cache.get(key);
+			PersianMetrics.cacheEvent(PersianMetrics.CACHE_MONTH_MATRIX, matrix != null ? PersianMetrics.CACHE_HIT : PersianMetrics.CACHE_MISS);
+			if (matrix == null) {
+				matrix = new PersianMonthMatrix(year, month);
+				cache.put(key, matrix);
+			}
+			return matrix;
+		}
+	}
+
+	/**
+	 * Drops the cached matrices, e.g. after the leap year rule changed.
+	 */
+	static void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	public int getYear() {
+		return year;
+	}
+
+	/**
+	 * @return the Persian month (zero-based)
+	 */
+	public int getMonth() {
+		return month;
+	}
+
+	/**
+	 * @return epoch day of the top right (Saturday) cell
+	 */
+	public int getFirstCellEpochDay() {
+		return firstCellEpochDay;
+	}
+
+	public int getMonthLength() {
+		return monthLength;
+	}
+
+	/**
+	 * @return number of cells before the 1st of the month, taken by the
+	 *         previous month
+	 */
+	public int getLeadingDays() {
+		return leadingDays;
+	}
+
+	/**
+	 * @return number of cells after the last day of the month, taken by the
+	 *         next month
+	 */
+	public int getTrailingDays() {
+		return CELLS - leadingDays - monthLength;
+	}
+
+	/**
+	 * @param cell
+	 *            index of the cell, row by row from 0 to {@link #CELLS} - 1
+	 * @return the epoch day shown in the cell
+	 */
+	public int getEpochDay(int cell) {
+		return firstCellEpochDay + cell;
+	}
+
+	/**
+	 * @param cell
+	 *            index of the cell, row by row from 0 to {@link #CELLS} - 1
+	 * @return the day of month shown in the cell, which belongs to the
+	 *         adjacent month when {@link #isInMonth(int)} is false
+	 */
+	public int getDayOfMonth(int cell) {
+		int day = cell - leadingDays + 1;
+		if (day < 1)
+			return day + previousMonthLength;
+		if (day > monthLength)
+			return day - monthLength;
+		return day;
+	}
+
+	public boolean isInMonth(int cell) {
+		return cell >= leadingDays && cell < leadingDays + monthLength;
+	}
+
+	/**
+	 * @return the cell showing the given epoch day, or -1 if it is not part of
+	 *         this grid
+	 */
+	public int getCell(int epochDay) {
+		int cell = epochDay - firstCellEpochDay;
+		return cell >= 0 && cell < CELLS ? cell : -1;
+	}
+
+	/**
+	 * @return the cell of the given day of this month
+	 */
+	public int getCellOfDay(int day) {
+		return leadingDays + day - 1;
+	}
+
+	/**
+	 * Writes the epoch days of all cells into {@code out}.
+	 *
+	 * @param out
+	 *            array of at least {@link #CELLS} elements
+	 * @return out
+	 */
+	public int[] getEpochDays(int[] out) {
+		for (int cell = 0; cell < CELLS; cell++)
+			out[cell] = firstCellEpochDay + cell;
+		return out;
+	}
+
+}
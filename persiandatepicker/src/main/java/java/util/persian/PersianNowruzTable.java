@@ -0,0 +1,70 @@
+package java.util.persian;
+
+/**
+ * Epoch days of 1 Farvardin by the astronomical rule, generated by
+ * tools/NowruzTableGenerator.java. Do not edit.
+ */
+final class PersianNowruzTable {
+
+	static final int FIRST_YEAR = 1200;
+	static final int LAST_YEAR = 1600;
+
+	/** 1 Farvardin of FIRST_YEAR to LAST_YEAR + 1 */
+	static final int[] EPOCH_DAYS = {
+			-54342, -53977, -53611, -53246, -52881, -52516, -52150, -51785,
+			-51420, -51055, -50690, -50324, -49959, -49594, -49229, -48863,
+			-48498, -48133, -47768, -47402, -47037, -46672, -46307, -45941,
+			-45576, -45211, -44846, -44480, -44115, -43750, -43385, -43019,
+			-42654, -42289, -41924, -41558, -41193, -40828, -40463, -40097,
+			-39732, -39367, -39002, -38637, -38271, -37906, -37541, -37176,
+			-36810, -36445, -36080, -35715, -35349, -34984, -34619, -34254,
+			-33888, -33523, -33158, -32793, -32427, -32062, -31697, -31332,
+			-30966, -30601, -30236, -29871, -29505, -29140, -28775, -28410,
+			-28044, -27679, -27314, -26949, -26584, -26218, -25853, -25488,
+			-25123, -24757, -24392, -24027, -23662, -23296, -22931, -22566,
+			-22201, -21835, -21470, -21105, -20740, -20374, -20009, -19644,
+			-19279, -18913, -18548, -18183, -17818, -17452, -17087, -16722,
+			-16357, -15991, -15626, -15261, -14896, -14531, -14165, -13800,
+			-13435, -13070, -12704, -12339, -11974, -11609, -11243, -10878,
+			-10513, -10148, -9782, -9417, -9052, -8687, -8321, -7956,
+			-7591, -7226, -6860, -6495, -6130, -5765, -5399, -5034,
+			-4669, -4304, -3938, -3573, -3208, -2843, -2478, -2112,
+			-1747, -1382, -1017, -651, -286, 79, 444, 810,
+			1175, 1540, 1905, 2271, 2636, 3001, 3366, 3732,
+			4097, 4462, 4827, 5193, 5558, 5923, 6288, 6654,
+			7019, 7384, 7749, 8115, 8480, 8845, 9210, 9575,
+			9941, 10306, 10671, 11036, 11402, 11767, 12132, 12497,
+			12863, 13228, 13593, 13958, 14324, 14689, 15054, 15419,
+			15785, 16150, 16515, 16880, 17246, 17611, 17976, 18341,
+			18707, 19072, 19437, 19802, 20168, 20533, 20898, 21263,
+			21628, 21994, 22359, 22724, 23089, 23455, 23820, 24185,
+			24550, 24916, 25281, 25646, 26011, 26377, 26742, 27107,
+			27472, 27838, 28203, 28568, 28933, 29299, 29664, 30029,
+			30394, 30760, 31125, 31490, 31855, 32221, 32586, 32951,
+			33316, 33681, 34047, 34412, 34777, 35142, 35508, 35873,
+			36238, 36603, 36969, 37334, 37699, 38064, 38430, 38795,
+			39160, 39525, 39891, 40256, 40621, 40986, 41352, 41717,
+			42082, 42447, 42813, 43178, 43543, 43908, 44274, 44639,
+			45004, 45369, 45734, 46100, 46465, 46830, 47195, 47561,
+			47926, 48291, 48656, 49022, 49387, 49752, 50117, 50483,
+			50848, 51213, 51578, 51944, 52309, 52674, 53039, 53405,
+			53770, 54135, 54500, 54866, 55231, 55596, 55961, 56326,
+			56692, 57057, 57422, 57787, 58153, 58518, 58883, 59248,
+			59614, 59979, 60344, 60709, 61075, 61440, 61805, 62170,
+			62536, 62901, 63266, 63631, 63997, 64362, 64727, 65092,
+			65458, 65823, 66188, 66553, 66919, 67284, 67649, 68014,
+			68380, 68745, 69110, 69475, 69840, 70206, 70571, 70936,
+			71301, 71667, 72032, 72397, 72762, 73128, 73493, 73858,
+			74223, 74589, 74954, 75319, 75684, 76050, 76415, 76780,
+			77145, 77511, 77876, 78241, 78606, 78972, 79337, 79702,
+			80067, 80433, 80798, 81163, 81528, 81893, 82259, 82624,
+			82989, 83354, 83720, 84085, 84450, 84815, 85181, 85546,
+			85911, 86276, 86642, 87007, 87372, 87737, 88103, 88468,
+			88833, 89198, 89564, 89929, 90294, 90659, 91025, 91390,
+			91755, 92120,
+	};
+
+	private PersianNowruzTable() {
+	}
+
+}
@@ -0,0 +1,122 @@
+package java.util.persian;
+
+import java.util.TimeZone;
+
+/**
+ * Start and end instants of the Persian day, week, month, season and year an
+ * instant falls in, for building time range filters. Unlike
+ * {@link java.util.PersianCalendar#setPersianDate(int, int, int)} followed by
+ * clearing the time fields, the boundaries are worked out from a single date
+ * conversion with day arithmetic, and the start of a local day is looked up in
+ * a per-zone cache. Nothing is allocated once the zone has been seen.
+ *
+ * <pre>
+ *  {@code
+ *    TimeZone tehran = TimeZone.getTimeZone("Asia/Tehran");
+ *    long from = PersianPeriods.startOf(now, tehran, PersianPeriods.MONTH);
+ *    long to = PersianPeriods.endOf(now, tehran, PersianPeriods.MONTH);
+ *    // from <= t < to
+ *  }
+ * </pre>
+ *
+ * Weeks start on Saturday; seasons are the quarters of three months starting
+ * with Farvardin, Tir, Mehr and Dey.
+ */
+public final class PersianPeriods {
+
+	public static final int DAY = 0;
+	public static final int WEEK = 1;
+	public static final int MONTH = 2;
+	public static final int SEASON = 3;
+	public static final int YEAR = 4;
+
+	private PersianPeriods() {
+	}
+
+	/**
+	 * @param unit
+	 *            {@link #DAY}, {@link #WEEK}, {@link #MONTH}, {@link #SEASON}
+	 *            or {@link #YEAR}
+	 * @return the instant the period of the instant starts at in the zone
+	 */
+	public static long startOf(long millis, TimeZone zone, int unit) {
+		long epochDay = localEpochDay(millis, zone);
+		return ZoneOffsetCache.dayStart(zone, startEpochDay(epochDay, unit));
+	}
+
+	/**
+	 * @param unit
+	 *            {@link #DAY}, {@link #WEEK}, {@link #MONTH}, {@link #SEASON}
+	 *            or {@link #YEAR}
+	 * @return the instant the period of the instant ends at in the zone,
+	 *         exclusive, i.e. the start of the next period
+	 */
+	public static long endOf(long millis, TimeZone zone, int unit) {
+		long epochDay = localEpochDay(millis, zone);
+		long start = startEpochDay(epochDay, unit);
+		return ZoneOffsetCache.dayStart(zone, start + length(start, unit));
+	}
+
+	/**
+	 * @param date
+	 *            a {@link PersianCalendarUtils#packDate packed} date
+	 * @return the packed first date of the period
+	 */
+	public static int startDate(int date, int unit) {
+		return PersianCalendarUtils.epochDayToPackedDate(startEpochDay(PersianDates.toEpochDay(date), unit));
+	}
+
+	/**
+	 * @return number of days of the period starting on the
+	 *         {@link PersianCalendarUtils#packDate packed} date
+	 */
+	public static int lengthInDays(int startDate, int unit) {
+		return length(PersianDates.toEpochDay(startDate), unit);
+	}
+
+	private static long localEpochDay(long millis, TimeZone zone) {
+		return PersianCalendarUtils.floorDiv(millis + zone.getOffset(millis), PersianCalendarConstants.MILLIS_OF_A_DAY);
+	}
+
+	private static long startEpochDay(long epochDay, int unit) {
+		if (unit == DAY)
+			return epochDay;
+		if (unit == WEEK)
+			return epochDay - PersianCalendarUtils.persianWeekDay(epochDay);
+		int date = PersianCalendarUtils.epochDayToPackedDate(epochDay);
+		int month = PersianCalendarUtils.packedMonth(date);
+		long monthStart = epochDay - PersianCalendarUtils.packedDay(date) + 1;
+		switch (unit) {
+		case MONTH:
+			return monthStart;
+		case SEASON:
+			// the months before it in the season are all 31 or all 30 days
+			return monthStart - month % 3 * (month < 6 ? 31 : 30);
+		case YEAR:
+			return monthStart - PersianDateSet.dayOfYear(month, 1);
+		default:
+			throw new IllegalArgumentException("unit is not valid: " + unit);
+		}
+	}
+
+	private static int length(long startEpochDay, int unit) {
+		if (unit == DAY)
+			return 1;
+		if (unit == WEEK)
+			return 7;
+		int date = PersianCalendarUtils.epochDayToPackedDate(startEpochDay);
+		int year = PersianCalendarUtils.packedYear(date);
+		int month = PersianCalendarUtils.packedMonth(date);
+		switch (unit) {
+		case MONTH:
+			return PersianCalendarUtils.persianMonthLength(year, month);
+		case SEASON:
+			return month < 6 ? 93 : month < 9 ? 90 : 60 + PersianCalendarUtils.persianMonthLength(year, 11);
+		case YEAR:
+			return PersianDateSet.yearLength(year);
+		default:
+			throw new IllegalArgumentException("unit is not valid: " + unit);
+		}
+	}
+
+}
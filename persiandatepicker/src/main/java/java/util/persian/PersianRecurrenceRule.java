@@ -0,0 +1,373 @@
+package java.util.persian;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A recurrence rule in Persian terms, modelled on the RFC 5545 RRULE:
+ * a frequency and interval, optionally limited or expanded by month, day of
+ * the month (negative days count from the end of the month) and day of the
+ * week, and ended by a date or a number of occurrences.
+ *
+ * <pre>
+ *  {@code
+ *    // last day of Esfand, 29 or 30
+ *    PersianRecurrenceRule rule = new PersianRecurrenceRule.Builder(PersianRecurrenceRule.YEARLY, start)
+ *            .setByMonth(11).setByMonthDay(-1).build();
+ *    PersianRecurrenceRule.EpochDays days = rule.iterator();
+ *    while (days.hasNext())
+ *        schedule(days.next());
+ *  }
+ * </pre>
+ *
+ * Occurrences are expanded lazily, a month at a time, as a bit mask of the
+ * days of the month built from the month lengths; iterating allocates nothing.
+ * Unlike RFC 5545 the start date is only an occurrence if it matches the rule.
+ * Rules are immutable and can be shared between threads.
+ */
+public final class PersianRecurrenceRule {
+
+	public static final int DAILY = 0;
+	public static final int WEEKLY = 1;
+	public static final int MONTHLY = 2;
+	public static final int YEARLY = 3;
+
+	// months in a row without an occurrence after which the rule is taken to
+	// never match again, e.g. the 31st of Mehr
+	private static final int MAX_EMPTY_MONTHS = 12 * 100;
+
+	private final int frequency;
+	private final int interval;
+	private final int start;
+	private final int startEpochDay;
+	private final int until;
+	private final int count;
+	// bit m for month m, 0 if not given
+	private final int byMonth;
+	// bit d for day d, and bit n for day -n
+	private final int byMonthDay;
+	private final int byNegativeMonthDay;
+	// bit w for Persian week day w, Saturday being 0; 0 if not given
+	private final int byWeekDay;
+
+	private PersianRecurrenceRule(Builder builder) {
+		frequency = builder.frequency;
+		interval = builder.interval;
+		start = builder.start;
+		startEpochDay = PersianDates.toEpochDay(start);
+		until = builder.until == 0 ? Integer.MAX_VALUE : PersianDates.toEpochDay(builder.until);
+		count = builder.count;
+		byMonth = builder.byMonth;
+		byMonthDay = builder.byMonthDay;
+		byNegativeMonthDay = builder.byNegativeMonthDay;
+		byWeekDay = builder.byWeekDay;
+	}
+
+	public int getFrequency() {
+		return frequency;
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return the {@link PersianCalendarUtils#packDate packed} start date
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the occurrences from the start date on
+	 */
+	public EpochDays iterator() {
+		return new EpochDays();
+	}
+
+	/**
+	 * @return the days of the month that match, bit d for day d
+	 */
+	private int monthMask(int year, int month, int monthStart) {
+		if (byMonth != 0 && (byMonth & 1 << month) == 0)
+			return 0;
+		int length = PersianCalendarUtils.persianMonthLength(year, month);
+		int all = (int) ((1L << (length + 1)) - 2);
+		int startYear = PersianCalendarUtils.packedYear(start);
+		int startMonth = PersianCalendarUtils.packedMonth(start);
+		int mask;
+		switch (frequency) {
+		case DAILY:
+			mask = 0;
+			for (int day = 1 + floorMod(startEpochDay - monthStart, interval); day <= length; day += interval)
+				mask |= 1 << day;
+			if (byMonthDay != 0 || byNegativeMonthDay != 0)
+				mask &= monthDays(length);
+			if (byWeekDay != 0)
+				mask &= weekDays(byWeekDay, monthStart, length);
+			return mask;
+		case WEEKLY:
+			int weekDays = byWeekDay != 0 ? byWeekDay : 1 << PersianCalendarUtils.persianWeekDay(startEpochDay);
+			mask = weekDays(weekDays, monthStart, length);
+			if (interval > 1) {
+				int startWeek = week(startEpochDay);
+				for (int day = 1; day <= length; day++)
+					if (floorMod(week(monthStart + day - 1) - startWeek, interval) != 0)
+						mask &= ~(1 << day);
+			}
+			if (byMonthDay != 0 || byNegativeMonthDay != 0)
+				mask &= monthDays(length);
+			return mask;
+		case MONTHLY:
+			if (floorMod(year * 12 + month - (startYear * 12 + startMonth), interval) != 0)
+				return 0;
+			return days(length, monthStart, all);
+		default:
+			if (floorMod(year - startYear, interval) != 0)
+				return 0;
+			// without any by-rule, only the month of the start date
+			if (byMonth == 0 && byMonthDay == 0 && byNegativeMonthDay == 0 && byWeekDay == 0 && month != startMonth)
+				return 0;
+			return days(length, monthStart, all);
+		}
+	}
+
+	/**
+	 * @return the days of a month of a monthly or yearly rule
+	 */
+	private int days(int length, int monthStart, int all) {
+		boolean hasMonthDays = byMonthDay != 0 || byNegativeMonthDay != 0;
+		if (!hasMonthDays && byWeekDay == 0)
+			return 1 << PersianCalendarUtils.packedDay(start) & all;
+		int mask = hasMonthDays ? monthDays(length) : all;
+		if (byWeekDay != 0)
+			mask &= weekDays(byWeekDay, monthStart, length);
+		return mask;
+	}
+
+	private int monthDays(int length) {
+		int all = (int) ((1L << (length + 1)) - 2);
+		int mask = byMonthDay & all;
+		for (int negative = byNegativeMonthDay; negative != 0; negative &= negative - 1) {
+			int day = length + 1 - Integer.numberOfTrailingZeros(negative);
+			if (day >= 1)
+				mask |= 1 << day;
+		}
+		return mask;
+	}
+
+	private static int weekDays(int weekDays, int monthStart, int length) {
+		int firstWeekDay = PersianCalendarUtils.persianWeekDay(monthStart);
+		int mask = 0;
+		for (int w = weekDays; w != 0; w &= w - 1) {
+			int weekDay = Integer.numberOfTrailingZeros(w);
+			for (int day = 1 + floorMod(weekDay - firstWeekDay, 7); day <= length; day += 7)
+				mask |= 1 << day;
+		}
+		return mask;
+	}
+
+	private static int week(int epochDay) {
+		return (epochDay + 5 - floorMod(epochDay + 5, 7)) / 7;
+	}
+
+	private static int floorMod(int a, int b) {
+		int mod = a % b;
+		return mod < 0 ? mod + b : mod;
+	}
+
+	/**
+	 * The occurrences of a rule as epoch days, in ascending order; a primitive
+	 * iterator that does not box.
+	 */
+	public final class EpochDays {
+
+		private int year;
+		private int month;
+		// first epoch day of the month to expand next
+		private int monthStart;
+		// days of the expanded month not returned yet, and its first epoch day
+		private int pending;
+		private int pendingMonthStart;
+		private int returned;
+		private boolean done;
+
+		EpochDays() {
+			year = PersianCalendarUtils.packedYear(start);
+			month = PersianCalendarUtils.packedMonth(start);
+			monthStart = startEpochDay - PersianCalendarUtils.packedDay(start) + 1;
+		}
+
+		public boolean hasNext() {
+			if (count > 0 && returned >= count)
+				return false;
+			if (pending == 0)
+				expandNextMonth();
+			return pending != 0;
+		}
+
+		/**
+		 * @return the next occurrence, in days since 1970-01-01
+		 */
+		public int next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int day = Integer.numberOfTrailingZeros(pending);
+			pending &= pending - 1;
+			returned++;
+			return pendingMonthStart + day - 1;
+		}
+
+		/**
+		 * @return the next occurrence as a {@link PersianCalendarUtils#packDate
+		 *         packed} date
+		 */
+		public int nextDate() {
+			return PersianCalendarUtils.epochDayToPackedDate(next());
+		}
+
+		private void expandNextMonth() {
+			int emptyMonths = 0;
+			while (!done) {
+				if (monthStart > until) {
+					done = true;
+					return;
+				}
+				int length = PersianCalendarUtils.persianMonthLength(year, month);
+				int mask = monthMask(year, month, monthStart);
+				if (monthStart < startEpochDay)
+					mask &= -(1 << (startEpochDay - monthStart + 1));
+				if (until < monthStart + length - 1)
+					mask &= (int) ((1L << (until - monthStart + 2)) - 1);
+				pending = mask;
+				pendingMonthStart = monthStart;
+
+				monthStart += length;
+				if (++month == 12) {
+					month = 0;
+					year++;
+				}
+				if (mask != 0)
+					return;
+				if (++emptyMonths > (long) MAX_EMPTY_MONTHS * interval)
+					done = true;
+			}
+		}
+	}
+
+	/**
+	 * Builds a rule; months are zero-based and week days count from Saturday
+	 * as 0, as everywhere else in this package.
+	 */
+	public static class Builder {
+
+		private final int frequency;
+		private final int start;
+		private int interval = 1;
+		private int until;
+		private int count;
+		private int byMonth;
+		private int byMonthDay;
+		private int byNegativeMonthDay;
+		private int byWeekDay;
+
+		/**
+		 * @param frequency
+		 *            {@link #DAILY}, {@link #WEEKLY}, {@link #MONTHLY} or
+		 *            {@link #YEARLY}
+		 * @param start
+		 *            the {@link PersianCalendarUtils#packDate packed} first
+		 *            date of the rule
+		 */
+		public Builder(int frequency, int start) {
+			if (frequency < DAILY || frequency > YEARLY)
+				throw new IllegalArgumentException("frequency is not valid: " + frequency);
+			if (!PersianDates.isValid(PersianDates.year(start), PersianDates.month(start), PersianDates.day(start)))
+				throw new IllegalArgumentException("start is not valid: " + start);
+			this.frequency = frequency;
+			this.start = start;
+		}
+
+		/**
+		 * @param interval
+		 *            1 for every day, week, month or year, 2 for every other
+		 *            and so on
+		 */
+		public Builder setInterval(int interval) {
+			if (interval < 1)
+				throw new IllegalArgumentException("interval is not valid: " + interval);
+			this.interval = interval;
+			return this;
+		}
+
+		/**
+		 * @param until
+		 *            the {@link PersianCalendarUtils#packDate packed} last date
+		 *            an occurrence may fall on, or 0 for none
+		 */
+		public Builder setUntil(int until) {
+			this.until = until;
+			return this;
+		}
+
+		/**
+		 * @param count
+		 *            number of occurrences, or 0 for no limit
+		 */
+		public Builder setCount(int count) {
+			if (count < 0)
+				throw new IllegalArgumentException("count is not valid: " + count);
+			this.count = count;
+			return this;
+		}
+
+		/**
+		 * @param months
+		 *            Persian months (zero-based)
+		 */
+		public Builder setByMonth(int... months) {
+			byMonth = 0;
+			for (int month : months) {
+				if (month < 0 || month > 11)
+					throw new IllegalArgumentException("month is not valid: " + month);
+				byMonth |= 1 << month;
+			}
+			return this;
+		}
+
+		/**
+		 * @param days
+		 *            days of the month, 1 to 31, or -1 (the last day) to -31
+		 */
+		public Builder setByMonthDay(int... days) {
+			byMonthDay = byNegativeMonthDay = 0;
+			for (int day : days) {
+				if (day >= 1 && day <= 31)
+					byMonthDay |= 1 << day;
+				else if (day <= -1 && day >= -31)
+					byNegativeMonthDay |= 1 << -day;
+				else
+					throw new IllegalArgumentException("day is not valid: " + day);
+			}
+			return this;
+		}
+
+		/**
+		 * @param weekDays
+		 *            Persian week days, Saturday being 0
+		 */
+		public Builder setByWeekDay(int... weekDays) {
+			byWeekDay = 0;
+			for (int weekDay : weekDays) {
+				if (weekDay < 0 || weekDay > 6)
+					throw new IllegalArgumentException("week day is not valid: " + weekDay);
+				byWeekDay |= 1 << weekDay;
+			}
+			return this;
+		}
+
+		public PersianRecurrenceRule build() {
+			return new PersianRecurrenceRule(this);
+		}
+	}
+
+}
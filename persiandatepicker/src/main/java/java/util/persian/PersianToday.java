@@ -0,0 +1,209 @@
+package java.util.persian;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Today's Persian date in a time zone, cached until the next local midnight.
+ * Asking for today is then a clock read and a comparison instead of a
+ * calendar allocation and a conversion.
+ *
+ * <pre>
+ *  {@code
+ *    int today = PersianToday.of(TimeZone.getTimeZone("Asia/Tehran")).getDate();
+ *
+ *    PersianToday.getDefault().addListener(new PersianToday.Listener() {
+ *        public void onDateChanged(PersianToday today, int date) {
+ *            // called on a timer thread right after midnight
+ *        }
+ *    });
+ *  }
+ * </pre>
+ *
+ * Listeners are called from a daemon timer thread; Android code should post
+ * to its own looper before touching views.
+ */
+public final class PersianToday {
+
+	private static final ConcurrentMap<String, PersianToday> instances = new ConcurrentHashMap<String, PersianToday>();
+
+	// one thread for the rollovers of every zone
+	private static class RolloverTimer {
+		static final Timer timer = new Timer("PersianToday", true);
+	}
+
+	private final TimeZone zone;
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	// today's date and the instants it starts and ends at, published together
+	private volatile Day day;
+	// guarded by this
+	private TimerTask rollover;
+	private int scheduledDate;
+
+	private PersianToday(TimeZone zone) {
+		this.zone = (TimeZone) zone.clone();
+	}
+
+	/**
+	 * @return the shared clock of the zone's ID, or a clock of its own if the
+	 *         zone's rules are not those of the zone the ID names, e.g. a
+	 *         {@link java.util.SimpleTimeZone} or a zone with a changed raw
+	 *         offset
+	 */
+	public static PersianToday of(TimeZone zone) {
+		PersianToday today = instances.get(zone.getID());
+		if (today == null) {
+			if (!TimeZone.getTimeZone(zone.getID()).hasSameRules(zone))
+				return new PersianToday(zone);
+			PersianToday created = new PersianToday(zone);
+			today = instances.putIfAbsent(zone.getID(), created);
+			if (today == null)
+				today = created;
+		}
+		return today.zone.hasSameRules(zone) ? today : new PersianToday(zone);
+	}
+
+	/**
+	 * @return the clock of the default time zone
+	 */
+	public static PersianToday getDefault() {
+		return of(TimeZone.getDefault());
+	}
+
+	/**
+	 * Forgets the cached dates, e.g. after the leap year rule changed.
+	 */
+	static void clearAll() {
+		for (PersianToday today : instances.values())
+			today.day = null;
+	}
+
+	public TimeZone getTimeZone() {
+		return (TimeZone) zone.clone();
+	}
+
+	/**
+	 * @return today's date {@link PersianCalendarUtils#packDate packed} into an
+	 *         int
+	 */
+	public int getDate() {
+		return current(System.currentTimeMillis()).date;
+	}
+
+	public int getYear() {
+		return PersianCalendarUtils.packedYear(getDate());
+	}
+
+	/**
+	 * @return the Persian month (zero-based)
+	 */
+	public int getMonth() {
+		return PersianCalendarUtils.packedMonth(getDate());
+	}
+
+	public int getDay() {
+		return PersianCalendarUtils.packedDay(getDate());
+	}
+
+	/**
+	 * @return the instant today ends at, i.e. the next local midnight
+	 */
+	public long getNextMidnight() {
+		return current(System.currentTimeMillis()).end;
+	}
+
+	/**
+	 * Adds a listener called once per rollover, right after midnight.
+	 */
+	public void addListener(Listener listener) {
+		listeners.addIfAbsent(listener);
+		synchronized (this) {
+			if (rollover == null)
+				schedule(current(System.currentTimeMillis()));
+		}
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+		synchronized (this) {
+			if (listeners.isEmpty() && rollover != null) {
+				rollover.cancel();
+				rollover = null;
+			}
+		}
+	}
+
+	private Day current(long now) {
+		Day current = day;
+		if (current == null || now >= current.end || now < current.start) {
+			current = compute(now);
+			day = current;
+		}
+		return current;
+	}
+
+	private Day compute(long now) {
+		int date = PersianDates.fromMillis(now, zone);
+		return new Day(date, PersianDates.toMillis(date, zone), PersianDates.toMillis(PersianDates.plusDays(date, 1), zone));
+	}
+
+	// guarded by this
+	private void schedule(Day current) {
+		scheduledDate = current.date;
+		rollover = new TimerTask() {
+			@Override
+			public void run() {
+				Day current = current(System.currentTimeMillis());
+				synchronized (PersianToday.this) {
+					if (rollover != this)
+						return;
+					boolean changed = current.date != scheduledDate;
+					schedule(current);
+					// woke up early, e.g. the clock was set back
+					if (!changed)
+						return;
+				}
+				// a failing listener must neither starve the others nor cancel the shared timer
+				for (Listener listener : listeners) {
+					try {
+						listener.onDateChanged(PersianToday.this, current.date);
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		};
+		RolloverTimer.timer.schedule(rollover, Math.max(0, current.end - System.currentTimeMillis()));
+	}
+
+	private static final class Day {
+		final int date;
+		final long start;
+		final long end;
+
+		Day(int date, long start, long end) {
+			this.date = date;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Notified when the date changes at midnight.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param date
+		 *            the new date {@link PersianCalendarUtils#packDate
+		 *            packed} into an int
+		 */
+		void onDateChanged(PersianToday today, int date);
+	}
+
+}
@@ -0,0 +1,83 @@
+package java.util.persian;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The instants local days start at in a time zone, cached per epoch day.
+ * Finding the start of a day takes a search through the zone's transitions
+ * and, around a transition, a second one; period boundaries ask for the same
+ * few days over and over, so they are remembered instead.
+ *
+ * <p>
+ * Like {@link PersianDateCache} it is direct mapped and lock-free: a slot is a
+ * single long holding the epoch day and the zone offset at its start. There is
+ * a cache per zone ID, used only for zones with the rules of the zone the ID
+ * names; others, such as a {@link java.util.SimpleTimeZone} or a zone with a
+ * changed raw offset, are worked out every time. The rules are assumed not to
+ * change while the process runs.
+ */
+final class ZoneOffsetCache {
+
+	private static final int SIZE = 256;
+
+	private static final ConcurrentMap<String, ZoneOffsetCache> caches = new ConcurrentHashMap<String, ZoneOffsetCache>();
+
+	private final TimeZone zone;
+	private final AtomicLongArray slots = new AtomicLongArray(SIZE);
+
+	private ZoneOffsetCache(TimeZone zone) {
+		this.zone = zone;
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01 in local time
+	 * @return the instant the local day starts at in the zone
+	 */
+	static long dayStart(TimeZone zone, long epochDay) {
+		ZoneOffsetCache cache = of(zone);
+		if (cache == null)
+			return PersianDates.localToMillis(epochDay * PersianCalendarConstants.MILLIS_OF_A_DAY, zone);
+		return cache.dayStart(epochDay);
+	}
+
+	/**
+	 * @return the cache of the zone's ID, or null if the zone's rules are not
+	 *         those of the zone the ID names
+	 */
+	private static ZoneOffsetCache of(TimeZone zone) {
+		ZoneOffsetCache cache = caches.get(zone.getID());
+		if (cache == null) {
+			TimeZone named = TimeZone.getTimeZone(zone.getID());
+			if (!named.hasSameRules(zone))
+				return null;
+			ZoneOffsetCache created = new ZoneOffsetCache(named);
+			cache = caches.putIfAbsent(zone.getID(), created);
+			if (cache == null)
+				cache = created;
+		}
+		return cache.zone.hasSameRules(zone) ? cache : null;
+	}
+
+	/**
+	 * @param epochDay
+	 *            days since 1970-01-01 in local time
+	 * @return the instant the local day starts at
+	 */
+	private long dayStart(long epochDay) {
+		long localMillis = epochDay * PersianCalendarConstants.MILLIS_OF_A_DAY;
+		int slot = (int) epochDay & (SIZE - 1);
+		long entry = slots.get(slot);
+		// an offset of 0 on day 0 reads as an empty slot and is only recomputed
+		if (entry != 0 && (int) (entry >> 32) == (int) epochDay)
+			return localMillis - (int) entry;
+		long millis = PersianDates.localToMillis(localMillis, zone);
+		int offset = (int) (localMillis - millis);
+		slots.set(slot, (epochDay << 32) | (offset & 0xFFFFFFFFL));
+		return millis;
+	}
+
+}
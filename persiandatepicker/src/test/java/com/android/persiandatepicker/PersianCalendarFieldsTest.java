@@ -0,0 +1,87 @@
+package com.android.persiandatepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.PersianCalendar;
+import java.util.TimeZone;
+import java.util.persian.PersianMetrics;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The Persian fields of {@link PersianCalendar} are computed once per change of the local date,
+ * however many mutations and reads there are, counted with {@link PersianMetrics#CONVERSION}.
+ */
+public class PersianCalendarFieldsTest {
+
+    private PersianMetrics.InMemory metrics;
+    private PersianCalendar calendar;
+
+    @Before
+    public void setUp() {
+        calendar = new PersianCalendar();
+        calendar.setTimeZone(TimeZone.getTimeZone("Asia/Tehran"));
+        calendar.setPersianDate(1403, 0, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 10);
+        calendar.set(Calendar.MINUTE, 0);
+        metrics = new PersianMetrics.InMemory();
+        PersianMetrics.setListener(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        PersianMetrics.setListener(null);
+    }
+
+    @Test
+    public void mutationsThenReadsComputeOnce() {
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.MINUTE, 30);
+        calendar.roll(Calendar.HOUR_OF_DAY, 2);
+        calendar.setTimeInMillis(calendar.getTimeInMillis() + 1000);
+        assertEquals(1403, calendar.getPersianYear());
+        assertEquals(0, calendar.getPersianMonth());
+        assertEquals(2, calendar.getPersianDay());
+        calendar.getPersianShortDate();
+        calendar.getPersianLongDate();
+        assertEquals(1, conversions());
+    }
+
+    @Test
+    public void sameDayMutationsComputeNothing() {
+        calendar.getPersianDay();
+        long before = conversions();
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.add(Calendar.MINUTE, 10);
+        calendar.setTimeZone(TimeZone.getTimeZone("Asia/Tehran"));
+        assertEquals(1, calendar.getPersianDay());
+        assertEquals(before, conversions());
+    }
+
+    @Test
+    public void eachNewDayComputesOnce() {
+        for (int i = 1; i <= 10; i++) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.add(Calendar.HOUR_OF_DAY, 1);
+            assertEquals(1 + i, calendar.getPersianDay());
+            assertEquals(0, calendar.getPersianMonth());
+            assertEquals(i, conversions());
+        }
+    }
+
+    @Test
+    public void setPersianDateIsNormalizedOnRead() {
+        calendar.setPersianDate(1403, 0, 32);
+        assertEquals(1, calendar.getPersianMonth());
+        assertEquals(1, calendar.getPersianDay());
+        assertEquals(1, conversions());
+    }
+
+    private long conversions() {
+        return metrics.getCount(PersianMetrics.CONVERSION);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.android.persiandatepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.persian.PersianCalendarUtils;
+import java.util.persian.PersianDateCache;
+import java.util.persian.PersianMetrics;
+
+import static org.junit.Assert.assertEquals;
+
+public class PersianDateCacheTest {
+
+    // 2025-03-20, 1404/01/01 by the arithmetic rule and 1403/12/30 by the astronomical one
+    private static final int EPOCH_DAY = 20167;
+
+    private PersianMetrics.InMemory metrics;
+
+    @Before
+    public void setUp() {
+        PersianDateCache.enable(PersianDateCache.DEFAULT_SIZE);
+        metrics = new PersianMetrics.InMemory();
+        PersianMetrics.setListener(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        PersianMetrics.setListener(null);
+        PersianDateCache.disable();
+        PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ARITHMETIC);
+    }
+
+    @Test
+    public void engineSwitchDropsCachedDates() {
+        assertEquals(PersianCalendarUtils.packDate(1404, 0, 1), PersianCalendarUtils.epochDayToPackedDate(EPOCH_DAY));
+        PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ASTRONOMICAL);
+        assertEquals(PersianCalendarUtils.packDate(1403, 11, 30), PersianCalendarUtils.epochDayToPackedDate(EPOCH_DAY));
+        PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ARITHMETIC);
+        assertEquals(PersianCalendarUtils.packDate(1404, 0, 1), PersianCalendarUtils.epochDayToPackedDate(EPOCH_DAY));
+    }
+
+    @Test
+    public void countsThroughMetrics() {
+        PersianDateCache cache = new PersianDateCache(4);
+        cache.get(EPOCH_DAY);
+        cache.get(EPOCH_DAY);
+        cache.get(EPOCH_DAY + 4);
+        cache.clear();
+        cache.get(EPOCH_DAY + 4);
+        assertEquals(1, cacheEvents(PersianMetrics.CACHE_HIT));
+        assertEquals(3, cacheEvents(PersianMetrics.CACHE_MISS));
+        assertEquals(1, cacheEvents(PersianMetrics.CACHE_EVICTION));
+    }
+
+    @Test
+    public void datesOutsideTheEntryAreComputed() {
+        PersianDateCache cache = new PersianDateCache(4);
+        // about year 40000
+        int epochDay = 14000000;
+        int date = PersianCalendarUtils.epochDayToPackedDate(epochDay);
+        assertEquals(date, cache.get(epochDay));
+        assertEquals(date, cache.get(epochDay));
+        assertEquals(0, cacheEvents(PersianMetrics.CACHE_HIT));
+    }
+
+    private long cacheEvents(int event) {
+        return metrics.getCacheEvents(PersianMetrics.CACHE_DATES, event);
+    }
+
+}
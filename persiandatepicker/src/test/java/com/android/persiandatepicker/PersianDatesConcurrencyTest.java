@@ -0,0 +1,95 @@
+package com.android.persiandatepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.persian.PersianDateCache;
+import java.util.persian.PersianDates;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link PersianDates} shared by many threads, with the shared date cache on: every thread must see
+ * the single threaded results.
+ */
+public class PersianDatesConcurrencyTest {
+
+    // 1300/01/01 and about 180 years on, as epoch days
+    private static final int FIRST_DAY = -17818;
+    private static final int DAYS = 65744;
+
+    private int[] dates;
+    private String[] texts;
+
+    @Before
+    public void setUp() {
+        PersianDateCache.enable(PersianDateCache.DEFAULT_SIZE);
+        dates = new int[DAYS];
+        texts = new String[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            dates[i] = PersianDates.fromEpochDay(FIRST_DAY + i);
+            texts[i] = PersianDates.format(dates[i]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        PersianDateCache.disable();
+    }
+
+    @Test
+    public void threadsSeeSingleThreadedResults() throws InterruptedException {
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        run(threads, new Work() {
+            @Override
+            public void run(int thread) {
+                // a different stride per thread, so threads collide on cache slots in different orders
+                int stride = 2 * thread + 1;
+                for (int n = 0, i = thread; n < DAYS; n++, i = (i + stride) % DAYS) {
+                    int date = PersianDates.fromEpochDay(FIRST_DAY + i);
+                    if (date != dates[i] || PersianDates.toEpochDay(date) != FIRST_DAY + i
+                            || !PersianDates.format(date).equals(texts[i]) || PersianDates.parse(texts[i]) != date) {
+                        failure.compareAndSet(null, "epoch day " + (FIRST_DAY + i) + " on thread " + thread);
+                        return;
+                    }
+                }
+            }
+        });
+        assertEquals(null, failure.get());
+    }
+
+    private interface Work {
+        void run(int thread);
+    }
+
+    /**
+     * Runs the work on the threads at once and waits for all of them.
+     */
+    private static void run(int threads, final Work work) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        work.run(thread);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        done.await();
+    }
+
+}
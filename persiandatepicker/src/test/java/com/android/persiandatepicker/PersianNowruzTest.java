@@ -0,0 +1,105 @@
+package com.android.persiandatepicker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.GregorianCalendar;
+import java.util.PersianCalendar;
+import java.util.TimeZone;
+import java.util.persian.PersianCalendarUtils;
+
+import static org.junit.Assert.assertEquals;
+
+public class PersianNowruzTest {
+
+    private static final long EPOCH_DAY_JULIAN_DAY = 2440588L;
+
+    // Persian year, Gregorian year, day of March, as announced
+    private static final int[][] OFFICIAL = {
+            {1354, 1975, 21}, {1358, 1979, 21}, {1370, 1991, 21}, {1375, 1996, 20}, {1379, 2000, 20},
+            {1383, 2004, 20}, {1387, 2008, 20}, {1391, 2012, 20}, {1395, 2016, 20}, {1396, 2017, 21},
+            {1397, 2018, 21}, {1398, 2019, 21}, {1399, 2020, 20}, {1400, 2021, 21}, {1401, 2022, 21},
+            {1402, 2023, 21}, {1403, 2024, 20}, {1404, 2025, 21}, {1405, 2026, 21},
+    };
+
+    // first and last year of the astronomical table
+    private static final int FIRST_TABLE_YEAR = 1200;
+    private static final int LAST_TABLE_YEAR = 1600;
+
+    @After
+    public void restoreEngine() {
+        PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ARITHMETIC);
+    }
+
+    @Test
+    public void astronomicalEngineMatchesOfficialNowruz() {
+        PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ASTRONOMICAL);
+        for (int[] official : OFFICIAL) {
+            long expected = julianDay(official[1], 2, official[2]);
+            assertEquals("Nowruz " + official[0], expected, PersianCalendarUtils.persianToJulian(official[0], 0, 1));
+            assertEquals("Nowruz " + official[0], expected, PersianCalendar.pj(official[0], 0, 1));
+        }
+    }
+
+    @Test
+    public void arithmeticEngineRoundTrips() {
+        roundTrip(PersianCalendarUtils.ENGINE_ARITHMETIC);
+    }
+
+    @Test
+    public void astronomicalEngineRoundTrips() {
+        roundTrip(PersianCalendarUtils.ENGINE_ASTRONOMICAL);
+    }
+
+    @Test
+    public void enginesAgreeAtTableEdges() {
+        int[][] ranges = {{FIRST_TABLE_YEAR - 10, FIRST_TABLE_YEAR + 5}, {LAST_TABLE_YEAR - 1, LAST_TABLE_YEAR + 10}};
+        for (int[] range : ranges) {
+            for (int year = range[0]; year <= range[1]; year++) {
+                PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ARITHMETIC);
+                long arithmetic = PersianCalendarUtils.persianToJulian(year, 0, 1);
+                boolean arithmeticLeap = PersianCalendarUtils.isPersianLeapYear(year);
+                PersianCalendarUtils.setEngine(PersianCalendarUtils.ENGINE_ASTRONOMICAL);
+                assertEquals("Nowruz " + year, arithmetic, PersianCalendarUtils.persianToJulian(year, 0, 1));
+                assertEquals("leap year " + year, arithmeticLeap, PersianCalendarUtils.isPersianLeapYear(year));
+            }
+        }
+    }
+
+    // every day from well before to well after the table, both ways
+    private static void roundTrip(int engine) {
+        PersianCalendarUtils.setEngine(engine);
+        long first = PersianCalendar.pj(FIRST_TABLE_YEAR - 100, 0, 1);
+        long last = PersianCalendar.pj(LAST_TABLE_YEAR + 100, 0, 1);
+        long expected = PersianCalendar.jp(first);
+        for (long julianDay = first; julianDay < last; julianDay++) {
+            long date = PersianCalendar.jp(julianDay);
+            assertEquals("day after " + (julianDay - 1), expected, date);
+            assertEquals(date, PersianCalendarUtils.julianToPersian(julianDay));
+            int year = (int) (date >> 16);
+            int month = (int) (date >> 8) & 0xFF;
+            int day = (int) date & 0xFF;
+            assertEquals(julianDay, PersianCalendar.pj(year, month, day));
+            assertEquals(julianDay, PersianCalendarUtils.persianToJulian(year, month, day));
+            expected = next(year, month, day);
+        }
+    }
+
+    private static long next(int year, int month, int day) {
+        if (day < PersianCalendarUtils.persianMonthLength(year, month)) {
+            return ((long) year << 16) | (month << 8) | (day + 1);
+        }
+        if (month < 11) {
+            return ((long) year << 16) | ((month + 1) << 8) | 1;
+        }
+        return ((long) (year + 1) << 16) | 1;
+    }
+
+    private static long julianDay(int year, int month, int day) {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis() / (24L * 60 * 60 * 1000) + EPOCH_DAY_JULIAN_DAY;
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.android.persiandatepicker;
+
+import org.junit.Test;
+
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import java.util.persian.PersianDates;
+import java.util.persian.PersianPeriods;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link PersianPeriods} boundaries around transitions at local midnight, where a day starts twice
+ * or the midnight it starts at never happens.
+ */
+public class PersianPeriodsTest {
+
+    private static final long HOUR = 3600000L;
+
+    @Test
+    public void dayStartingTwiceStartsAtTheFirstMidnight() {
+        // Tehran on Saturday 1357/05/14 (1978-08-05) set the clocks back from 01:00 to 00:00
+        TimeZone tehran = TimeZone.getTimeZone("Asia/Tehran");
+        long first = 271105200000L;
+        assertEquals(HOUR, tehran.getOffset(first + HOUR - 1) - tehran.getOffset(first + HOUR));
+        for (long t = first; t < first + 2 * HOUR; t += 60000L) {
+            assertEquals(first, PersianPeriods.startOf(t, tehran, PersianPeriods.DAY));
+            assertEquals(first, PersianPeriods.startOf(t, tehran, PersianPeriods.WEEK));
+        }
+        // the day and the week before end where they start
+        assertEquals(first, PersianPeriods.endOf(first - 1, tehran, PersianPeriods.DAY));
+        assertEquals(first, PersianPeriods.endOf(first - 1, tehran, PersianPeriods.WEEK));
+        assertEquals(first, PersianDates.toMillis(PersianDates.fromMillis(first, tehran), tehran));
+    }
+
+    @Test
+    public void daySkippingMidnightStartsWhenTheClocksMove() {
+        // Toronto set the clocks forward from 23:30 to 00:30, skipping the midnight 1919-03-31 starts at
+        TimeZone toronto = TimeZone.getTimeZone("America/Toronto");
+        long moved = -1601753400000L;
+        assertEquals(HOUR, toronto.getOffset(moved) - toronto.getOffset(moved - 1));
+        assertEquals(moved, PersianPeriods.startOf(moved, toronto, PersianPeriods.DAY));
+        assertEquals(moved, PersianPeriods.endOf(moved - 1, toronto, PersianPeriods.DAY));
+    }
+
+    @Test
+    public void zonesSharingAnIdKeepTheirOwnRules() {
+        long t = 1720000000000L;
+        TimeZone tehran = TimeZone.getTimeZone("Asia/Tehran");
+        TimeZone utc = new SimpleTimeZone(0, "Asia/Tehran");
+        TimeZone shifted = TimeZone.getTimeZone("Asia/Tehran");
+        shifted.setRawOffset(0);
+        long tehranStart = PersianPeriods.startOf(t, tehran, PersianPeriods.DAY);
+        assertEquals(t - t % 86400000L, PersianPeriods.startOf(t, utc, PersianPeriods.DAY));
+        assertEquals(t - t % 86400000L, PersianPeriods.startOf(t, shifted, PersianPeriods.DAY));
+        assertEquals(tehranStart, PersianPeriods.startOf(t, TimeZone.getTimeZone("Asia/Tehran"), PersianPeriods.DAY));
+    }
+
+}
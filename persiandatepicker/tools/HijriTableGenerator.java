@@ -0,0 +1,71 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.chrono.HijrahChronology;
+import java.time.chrono.HijrahDate;
+import java.time.temporal.ChronoField;
+
+/**
+ * Writes java.util.persian.HijriTable from the Umm al-Qura data bundled with
+ * the JDK (java.time.chrono.HijrahChronology, years 1300 to 1600).
+ *
+ * <pre>
+ * java HijriTableGenerator.java ../src/main/java/java/util/persian/HijriTable.java
+ * </pre>
+ */
+public class HijriTableGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: HijriTableGenerator <output>");
+            System.exit(1);
+        }
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        int firstYear = (int) chronology.range(ChronoField.YEAR).getMinimum();
+        int lastYear = (int) chronology.range(ChronoField.YEAR).getMaximum();
+        // the last year may be partial
+        try {
+            HijrahDate.of(lastYear, 12, 1).lengthOfMonth();
+        } catch (DateTimeException e) {
+            lastYear--;
+        }
+        long firstEpochDay = HijrahDate.of(firstYear, 1, 1).toEpochDay();
+
+        StringBuilder masks = new StringBuilder();
+        for (int year = firstYear; year <= lastYear; year++) {
+            int mask = 0;
+            for (int month = 1; month <= 12; month++) {
+                if (HijrahDate.of(year, month, 1).lengthOfMonth() == 30) {
+                    mask |= 1 << (month - 1);
+                }
+            }
+            if ((year - firstYear) % 10 == 0) {
+                masks.append("\n\t\t\t");
+            } else {
+                masks.append(' ');
+            }
+            masks.append(String.format("0x%03x,", mask));
+        }
+
+        Writer out = new OutputStreamWriter(new FileOutputStream(args[0]), "UTF-8");
+        out.write("package java.util.persian;\n\n"
+                + "/**\n"
+                + " * Umm al-Qura month lengths, generated by tools/HijriTableGenerator.java\n"
+                + " * from the data of java.time.chrono.HijrahChronology. Do not edit.\n"
+                + " */\n"
+                + "final class HijriTable {\n\n"
+                + "\tstatic final int FIRST_YEAR = " + firstYear + ";\n"
+                + "\tstatic final int LAST_YEAR = " + lastYear + ";\n\n"
+                + "\t/** epoch day of 1 Muharram FIRST_YEAR */\n"
+                + "\tstatic final int FIRST_EPOCH_DAY = " + firstEpochDay + ";\n\n"
+                + "\t/** per year, bit n set when month n (zero-based) has 30 days */\n"
+                + "\tstatic final short[] LONG_MONTHS = {" + masks + "\n\t};\n\n"
+                + "\tprivate HijriTable() {\n"
+                + "\t}\n\n"
+                + "}\n");
+        out.close();
+    }
+
+}
@@ -0,0 +1,218 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes java.util.persian.PersianNowruzTable, the first day of every Persian
+ * year by the astronomical rule of the official Iranian calendar: the year
+ * starts on the day of the March equinox if the equinox happens before true
+ * noon at the Tehran meridian (52.5 E), and on the next day otherwise.
+ *
+ * <p>
+ * The equinox is computed with Meeus, Astronomical Algorithms, chapter 27,
+ * converted from dynamical to universal time with the Espenak and Meeus
+ * polynomials for delta T; true noon uses the equation of time of chapter 28.
+ * Both are accurate to about a minute around the present, and delta T grows
+ * uncertain towards the end of the range.
+ *
+ * <pre>
+ * java NowruzTableGenerator.java ../src/main/java/java/util/persian/PersianNowruzTable.java
+ * java NowruzTableGenerator.java --verify
+ * </pre>
+ *
+ * {@code --verify} checks the rule against officially published Nowruz dates,
+ * lists the years in which it disagrees with the 2820 year arithmetic rule and
+ * the years whose equinox is too close to noon for the result to be certain.
+ */
+public class NowruzTableGenerator {
+
+    static final int FIRST_YEAR = 1200;
+    static final int LAST_YEAR = 1600;
+
+    static final long EPOCH_DAY_JULIAN_DAY = 2440588L;
+    static final double TEHRAN_LONGITUDE = 52.5;
+
+    // Persian year, Gregorian year, day of March, as announced
+    static final int[][] OFFICIAL = {
+            {1354, 1975, 21}, {1358, 1979, 21}, {1370, 1991, 21}, {1375, 1996, 20}, {1379, 2000, 20},
+            {1383, 2004, 20}, {1387, 2008, 20}, {1391, 2012, 20}, {1395, 2016, 20}, {1396, 2017, 21},
+            {1397, 2018, 21}, {1398, 2019, 21}, {1399, 2020, 20}, {1400, 2021, 21}, {1401, 2022, 21},
+            {1402, 2023, 21}, {1403, 2024, 20}, {1404, 2025, 21}, {1405, 2026, 21},
+    };
+
+    // Meeus table 27.C: A, B (degrees), C (degrees per century)
+    static final double[][] PERIODIC = {
+            {485, 324.96, 1934.136}, {203, 337.23, 32964.467}, {199, 342.08, 20.186},
+            {182, 27.85, 445267.112}, {156, 73.14, 45036.886}, {136, 171.52, 22518.443},
+            {77, 222.54, 65928.934}, {74, 296.72, 3034.906}, {70, 243.58, 9037.513},
+            {58, 119.81, 33718.147}, {52, 297.17, 150.678}, {50, 21.02, 2281.226},
+            {45, 247.54, 29929.562}, {44, 325.15, 31555.956}, {29, 60.93, 4443.417},
+            {18, 155.12, 67555.328}, {17, 288.79, 4562.452}, {16, 198.04, 62894.029},
+            {14, 199.76, 31436.921}, {12, 95.39, 14577.848}, {12, 287.11, 31931.756},
+            {12, 320.81, 34777.259}, {9, 227.73, 1222.114}, {8, 15.45, 16859.074},
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1 && args[0].equals("--verify")) {
+            System.exit(verify() ? 0 : 1);
+        }
+        if (args.length != 1) {
+            System.err.println("usage: NowruzTableGenerator <output> | --verify");
+            System.exit(1);
+        }
+
+        StringBuilder days = new StringBuilder();
+        for (int year = FIRST_YEAR; year <= LAST_YEAR + 1; year++) {
+            days.append((year - FIRST_YEAR) % 8 == 0 ? "\n\t\t\t" : " ").append(nowruz(year) - EPOCH_DAY_JULIAN_DAY).append(',');
+        }
+
+        Writer out = new OutputStreamWriter(new FileOutputStream(args[0]), "UTF-8");
+        out.write("package java.util.persian;\n\n"
+                + "/**\n"
+                + " * Epoch days of 1 Farvardin by the astronomical rule, generated by\n"
+                + " * tools/NowruzTableGenerator.java. Do not edit.\n"
+                + " */\n"
+                + "final class PersianNowruzTable {\n\n"
+                + "\tstatic final int FIRST_YEAR = " + FIRST_YEAR + ";\n"
+                + "\tstatic final int LAST_YEAR = " + LAST_YEAR + ";\n\n"
+                + "\t/** 1 Farvardin of FIRST_YEAR to LAST_YEAR + 1 */\n"
+                + "\tstatic final int[] EPOCH_DAYS = {" + days + "\n\t};\n\n"
+                + "\tprivate PersianNowruzTable() {\n"
+                + "\t}\n\n"
+                + "}\n");
+        out.close();
+    }
+
+    static boolean verify() {
+        boolean ok = true;
+        for (int[] official : OFFICIAL) {
+            long expected = gregorianToJulian(official[1], 3, official[2]);
+            long actual = nowruz(official[0]);
+            if (actual != expected) {
+                System.out.println("MISMATCH " + official[0] + ": expected March " + official[2] + ", got JDN " + actual);
+                ok = false;
+            }
+        }
+        System.out.println(OFFICIAL.length + " official dates checked" + (ok ? ", all match" : ""));
+
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            boolean leap = nowruz(year + 1) - nowruz(year) == 366;
+            if (leap != isArithmeticLeapYear(year)) {
+                System.out.println("leap year rules differ in " + year + ": astronomical " + leap);
+            }
+        }
+
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            double minutes = (equinox(year + 621) - noon(nowruz(year))) * 1440;
+            double otherNoon = (equinox(year + 621) - noon(nowruz(year) - 1)) * 1440;
+            if (Math.abs(minutes) < 5 || Math.abs(otherNoon) < 5) {
+                System.out.println("equinox within 5 minutes of noon in " + year);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * @return Julian day number of 1 Farvardin of the Persian year
+     */
+    static long nowruz(int persianYear) {
+        double equinox = equinox(persianYear + 621);
+        double tehranOffset = TEHRAN_LONGITUDE / 360;
+        long day = (long) Math.floor(equinox + 0.5 + tehranOffset);
+        return equinox <= noon(day) ? day : day + 1;
+    }
+
+    /**
+     * @return Julian date (UT) of true noon at Tehran on the given Julian day
+     */
+    static double noon(long day) {
+        return day - TEHRAN_LONGITUDE / 360 - equationOfTime(day) / 1440;
+    }
+
+    /**
+     * @return Julian date (UT) of the March equinox
+     */
+    static double equinox(int year) {
+        double y = (year - 2000) / 1000.0;
+        double jde0 = 2451623.80984 + 365242.37404 * y + 0.05169 * y * y - 0.00411 * y * y * y - 0.00057 * y * y * y * y;
+        double t = (jde0 - 2451545.0) / 36525;
+        double w = Math.toRadians(35999.373 * t - 2.47);
+        double dl = 1 + 0.0334 * Math.cos(w) + 0.0007 * Math.cos(2 * w);
+        double s = 0;
+        for (double[] term : PERIODIC) {
+            s += term[0] * Math.cos(Math.toRadians(term[1] + term[2] * t));
+        }
+        double jde = jde0 + 0.00001 * s / dl;
+        return jde - deltaT(year + 0.22) / 86400;
+    }
+
+    /**
+     * @return equation of time in minutes, apparent minus mean solar time
+     */
+    static double equationOfTime(double julianDate) {
+        double t = (julianDate - 2451545.0) / 36525;
+        double l0 = Math.toRadians(280.46646 + 36000.76983 * t + 0.0003032 * t * t);
+        double m = Math.toRadians(357.52911 + 35999.05029 * t - 0.0001537 * t * t);
+        double e = 0.016708634 - 0.000042037 * t - 0.0000001267 * t * t;
+        double epsilon = Math.toRadians(23.439291 - 0.0130042 * t);
+        double y = Math.tan(epsilon / 2) * Math.tan(epsilon / 2);
+        double eot = y * Math.sin(2 * l0) - 2 * e * Math.sin(m) + 4 * e * y * Math.sin(m) * Math.cos(2 * l0)
+                - 0.5 * y * y * Math.sin(4 * l0) - 1.25 * e * e * Math.sin(2 * m);
+        return Math.toDegrees(eot) * 4;
+    }
+
+    /**
+     * @return TT - UT in seconds, Espenak and Meeus polynomials
+     */
+    static double deltaT(double y) {
+        double t;
+        if (y < 1800 || y >= 2150) {
+            double u = (y - 1820) / 100;
+            return -20 + 32 * u * u;
+        } else if (y < 1860) {
+            t = y - 1800;
+            return 13.72 - 0.332447 * t + 0.0068612 * t * t + 0.0041116 * t * t * t - 0.00037436 * Math.pow(t, 4)
+                    + 0.0000121272 * Math.pow(t, 5) - 0.0000001699 * Math.pow(t, 6) + 0.000000000875 * Math.pow(t, 7);
+        } else if (y < 1900) {
+            t = y - 1860;
+            return 7.62 + 0.5737 * t - 0.251754 * t * t + 0.01680668 * t * t * t - 0.0004473624 * Math.pow(t, 4)
+                    + Math.pow(t, 5) / 233174;
+        } else if (y < 1920) {
+            t = y - 1900;
+            return -2.79 + 1.494119 * t - 0.0598939 * t * t + 0.0061966 * t * t * t - 0.000197 * Math.pow(t, 4);
+        } else if (y < 1941) {
+            t = y - 1920;
+            return 21.20 + 0.84493 * t - 0.076100 * t * t + 0.0020936 * t * t * t;
+        } else if (y < 1961) {
+            t = y - 1950;
+            return 29.07 + 0.407 * t - t * t / 233 + t * t * t / 2547;
+        } else if (y < 1986) {
+            t = y - 1975;
+            return 45.45 + 1.067 * t - t * t / 260 - t * t * t / 718;
+        } else if (y < 2005) {
+            t = y - 2000;
+            return 63.86 + 0.3345 * t - 0.060374 * t * t + 0.0017275 * t * t * t + 0.000651814 * Math.pow(t, 4)
+                    + 0.00002373599 * Math.pow(t, 5);
+        } else if (y < 2050) {
+            t = y - 2000;
+            return 62.92 + 0.32217 * t + 0.005589 * t * t;
+        } else {
+            double u = (y - 1820) / 100;
+            return -20 + 32 * u * u - 0.5628 * (2150 - y);
+        }
+    }
+
+    static long gregorianToJulian(int year, int month, int day) {
+        int a = (14 - month) / 12;
+        int y = year + 4800 - a;
+        int m = month + 12 * a - 3;
+        return day + (153 * m + 2) / 5 + 365L * y + y / 4 - y / 100 + y / 400 - 32045;
+    }
+
+    static boolean isArithmeticLeapYear(long year) {
+        long b = Math.floorMod(year - 474L, 2820L) + 474L;
+        return Math.floorMod((b + 38L) * 682L, 2816L) < 682L;
+    }
+
+}
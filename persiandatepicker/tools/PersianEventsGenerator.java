@@ -0,0 +1,185 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.LocalDate;
+import java.time.chrono.HijrahDate;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles persian_events.txt into the binary dataset read by
+ * java.util.persian.PersianEvents, see its class comment for the layout.
+ *
+ * <p>
+ * Lunar events are placed with the Umm al-Qura calendar bundled with the JDK
+ * (java.time.chrono.HijrahChronology) and converted to Persian dates by the
+ * official astronomical rule of NowruzTableGenerator, hence both are compiled
+ * together:
+ *
+ * <pre>
+ * javac -d build PersianEventsGenerator.java NowruzTableGenerator.java
+ * java -cp build PersianEventsGenerator persian_events.txt ../src/main/res/raw/persian_events.bin 1350 1450
+ * </pre>
+ */
+public class PersianEventsGenerator {
+
+    private static final int MAGIC = 0x50455654;
+    private static final int VERSION = 1;
+    private static final int HOLIDAY_FLAG = 0x8000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: PersianEventsGenerator <source> <output> <fromYear> <toYear>");
+            System.exit(1);
+        }
+        int fromYear = Integer.parseInt(args[2]);
+        int toYear = Integer.parseInt(args[3]);
+
+        final List<int[]> events = new ArrayList<>(); // packed date, title
+        Map<String, Integer> titles = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), "UTF-8"));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            boolean lunar = line.startsWith("L ");
+            if (lunar) {
+                line = line.substring(2).trim();
+            }
+            String[] parts = line.split("\\s+", 2);
+            String[] date = parts[0].split("/");
+            String title = parts.length > 1 ? parts[1] : "";
+            boolean holiday = title.startsWith("H ");
+            if (holiday) {
+                title = title.substring(2).trim();
+            }
+            if (title.isEmpty() || date.length < 2 || date.length > (lunar ? 2 : 3)) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected [L] [YYYY/]MM/DD [H] title");
+            }
+            int month = Integer.parseInt(date[date.length - 2]) - 1;
+            int day = Integer.parseInt(date[date.length - 1]);
+            if (lunar && (month < 0 || month > 11 || day == 0 || day < -29 || day > 30)) {
+                throw new IllegalArgumentException("line " + lineNumber + ": invalid lunar date " + parts[0]);
+            }
+            if (!lunar && (month < 0 || month > 11 || day < 1 || day > (month < 6 ? 31 : 30))) {
+                throw new IllegalArgumentException("line " + lineNumber + ": invalid date " + parts[0]);
+            }
+            if (!lunar && date.length == 2 && month == 11 && day == 30) {
+                throw new IllegalArgumentException("line " + lineNumber + ": Esfand 30 only exists in leap years, give the year");
+            }
+
+            Integer index = titles.get(title);
+            if (index == null) {
+                index = titles.size();
+                titles.put(title, index);
+            }
+            int flaggedTitle = index | (holiday ? HOLIDAY_FLAG : 0);
+            if (lunar) {
+                addLunar(events, month, day, flaggedTitle, fromYear, toYear);
+            } else if (date.length == 3) {
+                events.add(new int[]{pack(Integer.parseInt(date[0]), month, day), flaggedTitle});
+            } else {
+                for (int year = fromYear; year <= toYear; year++) {
+                    events.add(new int[]{pack(year, month, day), flaggedTitle});
+                }
+            }
+        }
+        reader.close();
+
+        // stable, so events of the same day keep the source order
+        Collections.sort(events, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(a[0], b[0]);
+            }
+        });
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[] offsets = new int[titles.size() + 1];
+        int i = 0;
+        for (String title : titles.keySet()) {
+            offsets[i++] = strings.size();
+            strings.write(title.getBytes("UTF-8"));
+        }
+        offsets[i] = strings.size();
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(args[1]));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeInt(events.size());
+        out.writeInt(titles.size());
+        for (int[] event : events) {
+            out.writeInt(event[0]);
+        }
+        for (int[] event : events) {
+            out.writeShort(event[1]);
+        }
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        strings.writeTo(out);
+        out.close();
+
+        System.out.println(events.size() + " events, " + titles.size() + " titles, " + out.size() + " bytes");
+    }
+
+    /**
+     * Adds the event on the Hijri month (zero-based) and day, counted from the end of the month when
+     * negative, of every Hijri year that falls in the Persian years.
+     */
+    private static void addLunar(List<int[]> events, int month, int day, int flaggedTitle, int fromYear, int toYear) {
+        int firstHijriYear = HijrahDate.from(LocalDate.ofEpochDay(nowruzEpochDay(fromYear))).get(ChronoField.YEAR);
+        int lastHijriYear = HijrahDate.from(LocalDate.ofEpochDay(nowruzEpochDay(toYear + 1) - 1)).get(ChronoField.YEAR);
+        for (int hijriYear = firstHijriYear; hijriYear <= lastHijriYear; hijriYear++) {
+            HijrahDate first = HijrahDate.of(hijriYear, month + 1, 1);
+            int length = first.lengthOfMonth();
+            int dayOfMonth = day < 0 ? length + 1 + day : day;
+            if (dayOfMonth > length) {
+                continue;
+            }
+            long epochDay = first.toEpochDay() + dayOfMonth - 1;
+            int date = persianDate(epochDay);
+            int year = date >> 9;
+            if (year >= fromYear && year <= toYear) {
+                events.add(new int[]{date, flaggedTitle});
+            }
+        }
+    }
+
+    /**
+     * @return the packed Persian date of the epoch day by the official astronomical rule
+     */
+    private static int persianDate(long epochDay) {
+        int year = LocalDate.ofEpochDay(epochDay).getYear() - 621;
+        if (epochDay < nowruzEpochDay(year)) {
+            year--;
+        }
+        int dayOfYear = (int) (epochDay - nowruzEpochDay(year));
+        int month = dayOfYear < 186 ? dayOfYear / 31 : 6 + (dayOfYear - 186) / 30;
+        int day = dayOfYear - (month < 6 ? month * 31 : 186 + (month - 6) * 30) + 1;
+        return pack(year, month, day);
+    }
+
+    private static long nowruzEpochDay(int year) {
+        return NowruzTableGenerator.nowruz(year) - NowruzTableGenerator.EPOCH_DAY_JULIAN_DAY;
+    }
+
+    private static int pack(int year, int month, int day) {
+        return (year << 9) | (month << 5) | day;
+    }
+
+}